@@ -0,0 +1,269 @@
+package SortingJava;
+
+import java.util.Random;
+
+// Front door that samples the input and dispatches to the sort best suited
+// to its shape. Every call returns a Stats object describing the choice.
+public class AdaptiveSort {
+    public enum Strategy {
+        // Input was already in ascending order
+        NONE,
+        // Input was strictly descending and was reversed in place
+        REVERSE,
+        // Small inputs
+        INSERTION,
+        // Nearly sorted inputs
+        MERGE,
+        // Keys in a range no wider than a small multiple of the length
+        COUNTING,
+        // Few distinct keys
+        THREE_WAY_QUICK,
+        // Large inputs with many distinct keys
+        RADIX,
+        // Everything else
+        INTROSORT
+    }
+
+    // Inputs at or below this size skip sampling and use insertion sort
+    static final int INSERTION_THRESHOLD = 32;
+
+    // Inputs at or above this size go to radix sort when keys are mostly distinct
+    static final int RADIX_THRESHOLD = 1 << 12;
+
+    // Number of evenly spaced positions sampled
+    static final int SAMPLE_SIZE = 256;
+
+    // Inputs whose values span at most this many keys per element are
+    // counted; the sampled span is checked against 1 per element first
+    static final int COUNTING_RANGE_RATIO = 2;
+
+    // Sample measurements and the resulting choice
+    public static final class Stats {
+        public Strategy strategy;
+        public int length;
+        public int sampleSize;
+        // Adjacent pairs (arr[p], arr[p + 1]) at the sampled positions that were out of order
+        public int sampledDescents;
+        // Inversions among the sampled elements, out of sampleSize * (sampleSize - 1) / 2
+        public long sampledInversions;
+        public int distinctEstimate;
+        // Smallest and largest sampled values; the exact bounds of the whole
+        // input once a narrow sample has been checked with a full scan
+        public int sampleMin;
+        public int sampleMax;
+        public long samplingNanos;
+        public long sortNanos;
+
+        @Override
+        public String toString() {
+            return "strategy=" + strategy + " length=" + length + " sampleSize=" + sampleSize
+                    + " descents=" + sampledDescents + " inversions=" + sampledInversions
+                    + " distinct~" + distinctEstimate + " range=[" + sampleMin + ", " + sampleMax + "]"
+                    + " sampling=" + samplingNanos / 1000 + "us sort=" + sortNanos / 1000 + "us";
+        }
+    }
+
+    public static Stats sort(int[] arr) {
+        Stats stats = new Stats();
+        stats.length = arr.length;
+
+        long start = System.nanoTime();
+        stats.strategy = arr.length <= INSERTION_THRESHOLD ? Strategy.INSERTION : choose(arr, stats);
+        long sampled = System.nanoTime();
+        stats.samplingNanos = sampled - start;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("AdaptiveSort", "sample", start);
+        }
+
+        switch (stats.strategy) {
+            case NONE:
+                break;
+            case REVERSE:
+                reverse(arr);
+                break;
+            case INSERTION:
+                MergeSort.insertionSort(arr, 0, arr.length);
+                break;
+            case MERGE:
+                MergeSort.naturalMergeSort(arr);
+                break;
+            case COUNTING:
+                countingSort(arr, stats.sampleMin, stats.sampleMax);
+                break;
+            case THREE_WAY_QUICK:
+                QuickSort.quickSort(arr, QuickSort.Strategy.THREE_WAY);
+                break;
+            case RADIX:
+                RadixSort.radixSort(arr);
+                break;
+            case INTROSORT:
+                QuickSort.quickSort(arr, QuickSort.Strategy.INTROSORT);
+                break;
+            default:
+                throw new IllegalStateException("Unknown strategy: " + stats.strategy);
+        }
+        stats.sortNanos = System.nanoTime() - sampled;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("AdaptiveSort", stats.strategy.name(), sampled);
+        }
+        return stats;
+    }
+
+    // Measures an evenly spaced sample and picks a strategy from it
+    static Strategy choose(int[] arr, Stats stats) {
+        int n = arr.length;
+        int size = Math.min(SAMPLE_SIZE, n - 1);
+        int[] sample = new int[size];
+        int descents = 0;
+        for (int s = 0; s < size; s++) {
+            int p = (int) ((long) (n - 1) * s / size);
+            sample[s] = arr[p];
+            if (arr[p] > arr[p + 1]) {
+                descents++;
+            }
+        }
+
+        // Insertion sort on the sample performs exactly one move per inversion
+        long inversions = 0;
+        for (int i = 1; i < size; i++) {
+            int key = sample[i];
+            int j = i - 1;
+            while (j >= 0 && sample[j] > key) {
+                sample[j + 1] = sample[j];
+                j--;
+                inversions++;
+            }
+            sample[j + 1] = key;
+        }
+
+        int distinct = 1;
+        for (int i = 1; i < size; i++) {
+            if (sample[i] != sample[i - 1]) {
+                distinct++;
+            }
+        }
+
+        stats.sampleSize = size;
+        stats.sampledDescents = descents;
+        stats.sampledInversions = inversions;
+        stats.distinctEstimate = distinct;
+        stats.sampleMin = sample[0];
+        stats.sampleMax = sample[size - 1];
+
+        long maxInversions = (long) size * (size - 1) / 2;
+        if (descents == 0 && inversions == 0 && isAscending(arr)) {
+            return Strategy.NONE;
+        }
+        if (descents == size && inversions == maxInversions && isStrictlyDescending(arr)) {
+            return Strategy.REVERSE;
+        }
+        if (descents <= size / 32 && inversions <= maxInversions / 100) {
+            return Strategy.MERGE;
+        }
+        // A narrow sampled span is confirmed with a full scan, which also
+        // replaces the sampled bounds with the exact ones counting needs
+        if ((long) stats.sampleMax - stats.sampleMin < n && denseRange(arr, stats)) {
+            return Strategy.COUNTING;
+        }
+        if (distinct <= size / 4) {
+            return Strategy.THREE_WAY_QUICK;
+        }
+        if (n >= RADIX_THRESHOLD) {
+            return Strategy.RADIX;
+        }
+        return Strategy.INTROSORT;
+    }
+
+    // Stores the exact min and max in stats; true if they span at most
+    // COUNTING_RANGE_RATIO keys per element
+    private static boolean denseRange(int[] arr, Stats stats) {
+        int min = arr[0];
+        int max = arr[0];
+        for (int value : arr) {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        stats.sampleMin = min;
+        stats.sampleMax = max;
+        return (long) max - min < (long) COUNTING_RANGE_RATIO * arr.length;
+    }
+
+    // Counting sort for values known to lie in [min, max]
+    private static void countingSort(int[] arr, int min, int max) {
+        int[] counts = new int[max - min + 1];
+        for (int value : arr) {
+            counts[value - min]++;
+        }
+        int k = 0;
+        for (int key = 0; key < counts.length; key++) {
+            for (int c = counts[key]; c > 0; c--) {
+                arr[k++] = key + min;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) counts.length * Integer.BYTES);
+            SortMetrics.moves(arr.length);
+        }
+    }
+
+    private static boolean isAscending(int[] arr) {
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i - 1] > arr[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isStrictlyDescending(int[] arr) {
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i - 1] <= arr[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void reverse(int[] arr) {
+        for (int i = 0, j = arr.length - 1; i < j; i++, j--) {
+            int temp = arr[i];
+            arr[i] = arr[j];
+            arr[j] = temp;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(arr.length);
+        }
+    }
+
+    public static void main(String[] args) {
+        int n = 1_000_000;
+        Random random = new Random(42);
+
+        int[] randomKeys = new int[n];
+        int[] nearlySorted = new int[n];
+        int[] fewUnique = new int[n];
+        int[] dense = new int[n];
+        int[] descending = new int[n];
+        int[] keys = new int[16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = random.nextInt();
+        }
+        for (int i = 0; i < n; i++) {
+            randomKeys[i] = random.nextInt();
+            nearlySorted[i] = i;
+            fewUnique[i] = keys[random.nextInt(keys.length)];
+            dense[i] = 1_000_000 + random.nextInt(n);
+            descending[i] = n - i;
+        }
+        for (int i = 0; i < n / 1000; i++) {
+            nearlySorted[random.nextInt(n)] = random.nextInt(n);
+        }
+
+        System.out.println("random:        " + sort(randomKeys));
+        System.out.println("nearly sorted: " + sort(nearlySorted));
+        System.out.println("few unique:    " + sort(fewUnique));
+        System.out.println("dense range:   " + sort(dense));
+        System.out.println("descending:    " + sort(descending));
+        System.out.println("small:         " + sort(new int[] { 5, 3, 1, 4 }));
+    }
+}
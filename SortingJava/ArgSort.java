@@ -0,0 +1,142 @@
+package SortingJava;
+
+import java.util.Arrays;
+
+// Stable argsort: computes the permutation that sorts a key column, then
+// applies it to any number of companion columns
+public class ArgSort {
+    // Returns perm such that keys[perm[0]] <= keys[perm[1]] <= ...; equal keys
+    // keep their original relative order. Each key is packed with its index
+    // as key << 32 | index and the longs are sorted with the parallel merge
+    // sort; the index in the low half breaks ties, so the order is stable,
+    // and the merges read keys sequentially instead of through the indices.
+    public static int[] argsort(int[] keys) {
+        int n = keys.length;
+        int[] perm = new int[n];
+        if (n <= 1) {
+            return perm;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = (long) keys[i] << 32 | i;
+        }
+        LongSort.mergeSort(packed);
+        for (int i = 0; i < n; i++) {
+            perm[i] = (int) packed[i];
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) n * Long.BYTES);
+            SortMetrics.moves(2L * n);
+            SortMetrics.phase("ArgSort", "argsort", start);
+        }
+        return perm;
+    }
+
+    // Reorders every column so that column[i] becomes the old column[perm[i]].
+    // Each column is gathered into a scratch column in index order and copied
+    // back, so the writes and the reads of perm are sequential and only the
+    // reads through perm jump around. Takes one scratch column per element
+    // type used.
+    public static void apply(int[] perm, int[][] intColumns, long[][] longColumns, double[][] doubleColumns) {
+        int n = perm.length;
+        checkLengths(n, intColumns, longColumns, doubleColumns);
+
+        long[] seen = new long[(n + 63) >>> 6];
+        for (int p : perm) {
+            if (p < 0 || p >= n || (seen[p >>> 6] & (1L << p)) != 0) {
+                throw new IllegalArgumentException("Not a permutation of 0.." + (n - 1) + ": " + p);
+            }
+            seen[p >>> 6] |= 1L << p;
+        }
+        long allocated = (long) seen.length * Long.BYTES;
+        long moved = 0;
+
+        if (intColumns != null && intColumns.length > 0) {
+            int[] temp = new int[n];
+            for (int[] column : intColumns) {
+                for (int i = 0; i < n; i++) {
+                    temp[i] = column[perm[i]];
+                }
+                System.arraycopy(temp, 0, column, 0, n);
+            }
+            allocated += (long) n * Integer.BYTES;
+            moved += 2L * n * intColumns.length;
+        }
+        if (longColumns != null && longColumns.length > 0) {
+            long[] temp = new long[n];
+            for (long[] column : longColumns) {
+                for (int i = 0; i < n; i++) {
+                    temp[i] = column[perm[i]];
+                }
+                System.arraycopy(temp, 0, column, 0, n);
+            }
+            allocated += (long) n * Long.BYTES;
+            moved += 2L * n * longColumns.length;
+        }
+        if (doubleColumns != null && doubleColumns.length > 0) {
+            double[] temp = new double[n];
+            for (double[] column : doubleColumns) {
+                for (int i = 0; i < n; i++) {
+                    temp[i] = column[perm[i]];
+                }
+                System.arraycopy(temp, 0, column, 0, n);
+            }
+            allocated += (long) n * Double.BYTES;
+            moved += 2L * n * doubleColumns.length;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated(allocated);
+            SortMetrics.moves(moved);
+        }
+    }
+
+    public static void apply(int[] perm, int[]... columns) {
+        apply(perm, columns, null, null);
+    }
+
+    public static void apply(int[] perm, long[]... columns) {
+        apply(perm, null, columns, null);
+    }
+
+    public static void apply(int[] perm, double[]... columns) {
+        apply(perm, null, null, columns);
+    }
+
+    private static void checkLengths(int n, int[][] intColumns, long[][] longColumns, double[][] doubleColumns) {
+        if (intColumns != null) {
+            for (int[] column : intColumns) {
+                checkLength(n, column.length);
+            }
+        }
+        if (longColumns != null) {
+            for (long[] column : longColumns) {
+                checkLength(n, column.length);
+            }
+        }
+        if (doubleColumns != null) {
+            for (double[] column : doubleColumns) {
+                checkLength(n, column.length);
+            }
+        }
+    }
+
+    private static void checkLength(int n, int length) {
+        if (length != n) {
+            throw new IllegalArgumentException("Column length " + length + " does not match permutation length " + n);
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] status = { 3, 1, 2, 1, 3 };
+        long[] timestamps = { 500L, 100L, 300L, 200L, 400L };
+        double[] scores = { 0.5, 0.1, 0.3, 0.2, 0.4 };
+
+        int[] perm = argsort(status);
+        apply(perm, new int[][] { status }, new long[][] { timestamps }, new double[][] { scores });
+
+        System.out.println("status:     " + Arrays.toString(status));
+        System.out.println("timestamps: " + Arrays.toString(timestamps));
+        System.out.println("scores:     " + Arrays.toString(scores));
+    }
+}
@@ -0,0 +1,272 @@
+package SortingJava;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+// External merge sort for binary files of little-endian ints that do not fit in memory
+//
+// Phase one reads the input in chunks of chunkInts values, sorts each chunk
+// in place with MergeSort and spills it as a sorted run. Phase two merges
+// all runs in a single k-way pass, reading each run through its own read
+// buffer of a fixed size.
+//
+// Peak heap in phase one is two int arrays of chunkInts values, the chunk
+// and its merge buffer, both reused for every chunk. All file I/O goes
+// through ordinary channel reads and writes rather than mapped regions: a
+// mapping stays open until the buffer is garbage collected, and on Windows
+// an open mapping keeps the run file from being deleted.
+public class ExternalSort {
+    public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    public static final int DEFAULT_CHUNK_INTS = 1 << 24;
+    public static final int DEFAULT_BUFFER_BYTES = 1 << 16;
+
+    // Size of the buffer that chunks are read and runs written through in phase one
+    private static final int RUN_IO_BYTES = 1 << 20;
+
+    // I/O counters and timings for each phase
+    public static final class Stats {
+        public int runs;
+        public long phase1BytesRead;
+        public long phase1BytesWritten;
+        public long phase1Nanos;
+        public long phase2BytesRead;
+        public long phase2BytesWritten;
+        public long phase2Nanos;
+
+        @Override
+        public String toString() {
+            return "runs=" + runs
+                    + " phase1[read=" + phase1BytesRead + "B written=" + phase1BytesWritten
+                    + "B time=" + phase1Nanos / 1_000_000 + "ms]"
+                    + " phase2[read=" + phase2BytesRead + "B written=" + phase2BytesWritten
+                    + "B time=" + phase2Nanos / 1_000_000 + "ms]";
+        }
+    }
+
+    public static Stats sort(Path input, Path output) throws IOException {
+        return sort(input, output, DEFAULT_CHUNK_INTS, DEFAULT_BUFFER_BYTES, output.toAbsolutePath().getParent());
+    }
+
+    // Sorts input into output; runs are spilled into tempDir and deleted afterwards
+    public static Stats sort(Path input, Path output, int chunkInts, int bufferBytes, Path tempDir)
+            throws IOException {
+        if (chunkInts < 1 || chunkInts > Integer.MAX_VALUE / Integer.BYTES) {
+            throw new IllegalArgumentException("chunkInts out of range: " + chunkInts);
+        }
+        if (bufferBytes < Integer.BYTES) {
+            throw new IllegalArgumentException("bufferBytes must hold at least one int: " + bufferBytes);
+        }
+
+        Stats stats = new Stats();
+        List<Path> runs = new ArrayList<>();
+        try {
+            long start = System.nanoTime();
+            createRuns(input, chunkInts, tempDir, runs, stats);
+            stats.phase1Nanos = System.nanoTime() - start;
+            if (SortMetrics.ENABLED) {
+                SortMetrics.phase("ExternalSort", "runs", start);
+            }
+
+            start = System.nanoTime();
+            mergeRuns(runs, output, bufferBytes, stats);
+            stats.phase2Nanos = System.nanoTime() - start;
+            if (SortMetrics.ENABLED) {
+                SortMetrics.phase("ExternalSort", "merge", start);
+            }
+        } finally {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+        }
+        stats.runs = runs.size();
+        return stats;
+    }
+
+    // Phase one: sort heap-sized chunks and spill each one as a run
+    private static void createRuns(Path input, int chunkInts, Path tempDir, List<Path> runs, Stats stats)
+            throws IOException {
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size % Integer.BYTES != 0) {
+                throw new IOException("Input size is not a multiple of " + Integer.BYTES + " bytes: " + size);
+            }
+
+            int[] chunk = new int[(int) Math.min(chunkInts, size / Integer.BYTES)];
+            int[] aux = new int[chunk.length];
+            ByteBuffer io = ByteBuffer.allocateDirect(RUN_IO_BYTES).order(BYTE_ORDER);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated(2L * chunk.length * Integer.BYTES);
+            }
+            while (stats.phase1BytesRead < size) {
+                int count = (int) Math.min(chunk.length, (size - stats.phase1BytesRead) / Integer.BYTES);
+                stats.phase1BytesRead += read(in, io, chunk, count);
+
+                MergeSort.parallelMergeSort(chunk, count, aux);
+
+                Path run = Files.createTempFile(tempDir, "run-", ".bin");
+                runs.add(run);
+                try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+                    stats.phase1BytesWritten += write(out, io, chunk, count);
+                }
+            }
+        }
+    }
+
+    // Fills ints[0, count) from the channel's current position; returns the bytes read
+    private static long read(FileChannel in, ByteBuffer io, int[] ints, int count) throws IOException {
+        long total = 0;
+        for (int done = 0; done < count; ) {
+            io.clear();
+            io.limit((int) Math.min(io.capacity(), (long) (count - done) * Integer.BYTES));
+            while (io.hasRemaining()) {
+                int read = in.read(io);
+                if (read < 0) {
+                    throw new IOException("Input ended early, " + (count - done) + " ints short");
+                }
+                total += read;
+            }
+            io.flip();
+            int n = io.remaining() / Integer.BYTES;
+            io.asIntBuffer().get(ints, done, n);
+            done += n;
+        }
+        return total;
+    }
+
+    // Writes ints[0, count) at the channel's current position; returns the bytes written
+    private static long write(FileChannel out, ByteBuffer io, int[] ints, int count) throws IOException {
+        long total = 0;
+        for (int done = 0; done < count; ) {
+            io.clear();
+            int n = Math.min(io.capacity() / Integer.BYTES, count - done);
+            io.asIntBuffer().put(ints, done, n);
+            io.position(n * Integer.BYTES);
+            total += flush(out, io);
+            done += n;
+        }
+        return total;
+    }
+
+    // Phase two: k-way merge of all runs through bounded read buffers
+    private static void mergeRuns(List<Path> runs, Path output, int bufferBytes, Stats stats) throws IOException {
+        List<RunReader> readers = new ArrayList<>();
+        try (FileChannel out = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (Path run : runs) {
+                readers.add(new RunReader(FileChannel.open(run, StandardOpenOption.READ), bufferBytes));
+            }
+
+            ByteBuffer outBuffer = ByteBuffer.allocateDirect(bufferBytes - bufferBytes % Integer.BYTES)
+                    .order(BYTE_ORDER);
+            try {
+                KWayMerge.LoserTree tree = new KWayMerge.LoserTree(readers.toArray(new RunReader[0]), false);
+                while (tree.hasNext()) {
+                    if (!outBuffer.hasRemaining()) {
+                        stats.phase2BytesWritten += flush(out, outBuffer);
+                    }
+                    outBuffer.putInt(tree.nextInt());
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            stats.phase2BytesWritten += flush(out, outBuffer);
+        } finally {
+            for (RunReader reader : readers) {
+                stats.phase2BytesRead += reader.bytesRead;
+                reader.channel.close();
+            }
+        }
+    }
+
+    private static long flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+
+    // Sequential reader over one run with a fixed-size buffer, used as a
+    // source for the loser tree
+    private static final class RunReader implements PrimitiveIterator.OfInt {
+        final FileChannel channel;
+        final ByteBuffer buffer;
+        long bytesRead;
+
+        RunReader(FileChannel channel, int bufferBytes) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferBytes - bufferBytes % Integer.BYTES).order(BYTE_ORDER);
+            this.buffer.flip();
+        }
+
+        // Refills the buffer when it runs dry; false once the run is exhausted
+        @Override
+        public boolean hasNext() {
+            if (buffer.remaining() >= Integer.BYTES) {
+                return true;
+            }
+            try {
+                buffer.compact();
+                int read;
+                while ((read = channel.read(buffer)) > 0) {
+                    bytesRead += read;
+                }
+                buffer.flip();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return buffer.remaining() >= Integer.BYTES;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return buffer.getInt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("external-sort");
+        Path input = dir.resolve("input.bin");
+        Path output = dir.resolve("output.bin");
+
+        int count = 1_000_000;
+        Random random = new Random(42);
+        ByteBuffer data = ByteBuffer.allocate(count * Integer.BYTES).order(BYTE_ORDER);
+        for (int i = 0; i < count; i++) {
+            data.putInt(random.nextInt());
+        }
+        Files.write(input, data.array());
+
+        Stats stats = sort(input, output, count / 10, DEFAULT_BUFFER_BYTES, dir);
+        System.out.println(stats);
+
+        IntBuffer result = ByteBuffer.wrap(Files.readAllBytes(output)).order(BYTE_ORDER).asIntBuffer();
+        boolean sorted = result.remaining() == count;
+        for (int i = 1; sorted && i < result.limit(); i++) {
+            sorted = result.get(i - 1) <= result.get(i);
+        }
+        System.out.println("Output sorted: " + sorted);
+
+        Files.delete(input);
+        Files.delete(output);
+        Files.delete(dir);
+    }
+}
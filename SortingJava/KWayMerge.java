@@ -0,0 +1,220 @@
+package SortingJava;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+// K-way merge of sorted inputs driven by a loser tree (tournament tree)
+//
+// Each output element costs about log2(k) comparisons, instead of the k a
+// linear scan over the heads would need.
+public class KWayMerge {
+    // Merges sorted runs into a new array
+    public static int[] merge(int[][] runs) {
+        long total = 0;
+        for (int[] run : runs) {
+            total += run.length;
+        }
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Merged length does not fit in an array: " + total);
+        }
+        int[] out = new int[(int) total];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated(total * Integer.BYTES);
+        }
+        merge(runs, out, null);
+        return out;
+    }
+
+    // Merges sorted runs into out; when sourceOut is not null it receives the
+    // index of the run every output element came from, and equal elements are
+    // emitted in run order
+    public static void merge(int[][] runs, int[] out, int[] sourceOut) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        PrimitiveIterator.OfInt[] sources = new PrimitiveIterator.OfInt[runs.length];
+        for (int i = 0; i < runs.length; i++) {
+            sources[i] = new ArraySource(runs[i]);
+        }
+        LoserTree tree = new LoserTree(sources, sourceOut != null);
+        int k = 0;
+        while (tree.hasNext()) {
+            if (k == out.length) {
+                throw new IllegalArgumentException("Output array is too small: " + out.length);
+            }
+            out[k] = tree.nextInt();
+            if (sourceOut != null) {
+                sourceOut[k] = tree.lastSource();
+            }
+            k++;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("KWayMerge", "merge", start);
+        }
+    }
+
+    // Merges sorted streams into sink and returns the number of elements emitted
+    public static long merge(PrimitiveIterator.OfInt[] sources, boolean stable, IntConsumer sink) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        LoserTree tree = new LoserTree(sources, stable);
+        long count = 0;
+        while (tree.hasNext()) {
+            sink.accept(tree.nextInt());
+            count++;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("KWayMerge", "merge", start);
+        }
+        return count;
+    }
+
+    // Loser tree over k sorted sources, itself a sorted source
+    //
+    // tree[0] holds the index of the current winner and tree[1..k-1] hold the
+    // loser of the match played at that node. Source i sits at leaf k + i, so
+    // replaying after the winner advances only walks its path to the root.
+    public static final class LoserTree implements PrimitiveIterator.OfInt {
+        private final PrimitiveIterator.OfInt[] sources;
+        private final boolean stable;
+        private final int[] heads;
+        private final boolean[] exhausted;
+        private final int[] tree;
+        private int lastSource = -1;
+
+        // When stable is set, ties are broken by source index so equal values
+        // come out in source order
+        public LoserTree(PrimitiveIterator.OfInt[] sources, boolean stable) {
+            int k = sources.length;
+            this.sources = sources;
+            this.stable = stable;
+            this.heads = new int[k];
+            this.exhausted = new boolean[k];
+            this.tree = new int[Math.max(k, 1)];
+
+            for (int i = 0; i < k; i++) {
+                load(i);
+            }
+
+            // Build bottom-up: the first arrival at a node waits there, the
+            // second one plays it
+            Arrays.fill(tree, -1);
+            for (int i = 0; i < k; i++) {
+                int winner = i;
+                int node = (i + k) >>> 1;
+                for (; node > 0; node >>>= 1) {
+                    if (tree[node] == -1) {
+                        tree[node] = winner;
+                        winner = -1;
+                        break;
+                    }
+                    if (beats(tree[node], winner)) {
+                        int temp = tree[node];
+                        tree[node] = winner;
+                        winner = temp;
+                    }
+                }
+                if (winner != -1) {
+                    tree[0] = winner;
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return tree[0] >= 0 && !exhausted[tree[0]];
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            int winner = tree[0];
+            int value = heads[winner];
+            lastSource = winner;
+
+            load(winner);
+            int matches = 0;
+            for (int node = (winner + heads.length) >>> 1; node > 0; node >>>= 1) {
+                if (beats(tree[node], winner)) {
+                    int temp = tree[node];
+                    tree[node] = winner;
+                    winner = temp;
+                }
+                matches++;
+            }
+            tree[0] = winner;
+            if (SortMetrics.ENABLED) {
+                SortMetrics.comparisons(matches);
+                SortMetrics.moves(1);
+            }
+            return value;
+        }
+
+        // Index of the source the last value returned by nextInt came from
+        public int lastSource() {
+            return lastSource;
+        }
+
+        private void load(int source) {
+            if (sources[source].hasNext()) {
+                heads[source] = sources[source].nextInt();
+            } else {
+                exhausted[source] = true;
+            }
+        }
+
+        // Whether source a wins against source b; exhausted sources always lose
+        private boolean beats(int a, int b) {
+            if (exhausted[a]) {
+                return false;
+            }
+            if (exhausted[b]) {
+                return true;
+            }
+            if (heads[a] != heads[b]) {
+                return heads[a] < heads[b];
+            }
+            return stable && a < b;
+        }
+    }
+
+    // Sorted source over an int[]
+    static final class ArraySource implements PrimitiveIterator.OfInt {
+        private final int[] arr;
+        private int index;
+
+        ArraySource(int[] arr) {
+            this.arr = arr;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < arr.length;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= arr.length) {
+                throw new NoSuchElementException();
+            }
+            return arr[index++];
+        }
+    }
+
+    public static void main(String[] args) {
+        int[][] runs = {
+                { 1, 4, 9, 12 },
+                { 2, 4, 6 },
+                {},
+                { 0, 4, 13, 20 },
+        };
+        int[] out = new int[11];
+        int[] sources = new int[11];
+        merge(runs, out, sources);
+        System.out.println("Merged:");
+        QuickSort.printArray(out);
+        System.out.println("Sources:");
+        QuickSort.printArray(sources);
+    }
+}
@@ -0,0 +1,216 @@
+package SortingJava;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// long[] ports of the ping-pong merge sort behind MergeSort.parallelMergeSort
+// and of the introsort behind QuickSort.quickSort. double[] is sorted through
+// here as well, after TotalOrder maps it onto long keys. The loops are
+// written out for long[] rather than shared with the int and object
+// versions: a generic version would box every key, and a shared compare
+// callback would cost a call per comparison in the hottest loops.
+final class LongSort {
+    // The thresholds are the ones of the int sorts, so the variants stay in step
+    private static final int MERGE_INSERTION_CUTOFF = MergeSort.DEFAULT_INSERTION_CUTOFF;
+    private static final int PARALLEL_THRESHOLD = MergeSort.PARALLEL_THRESHOLD;
+    private static final int QUICK_INSERTION_THRESHOLD = QuickSort.INSERTION_THRESHOLD;
+    private static final int NINTHER_THRESHOLD = QuickSort.NINTHER_THRESHOLD;
+
+    private LongSort() {
+    }
+
+    // Stable parallel merge sort with a single auxiliary buffer
+    static void mergeSort(long[] arr) {
+        if (arr.length <= 1) {
+            return;
+        }
+        long[] aux = arr.clone();
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) aux.length * Long.BYTES);
+        }
+        ForkJoinPool.commonPool().invoke(new SortTask(aux, arr, 0, arr.length));
+    }
+
+    // Sorts src[lo, hi) into dst[lo, hi); on entry both arrays hold the same
+    // elements in that range
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] src;
+        private final long[] dst;
+        private final int lo;
+        private final int hi;
+
+        SortTask(long[] src, long[] dst, int lo, int hi) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            int length = hi - lo;
+            if (length <= MERGE_INSERTION_CUTOFF) {
+                insertionSort(dst, lo, hi);
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            SortTask left = new SortTask(dst, src, lo, mid);
+            SortTask right = new SortTask(dst, src, mid, hi);
+            if (length <= PARALLEL_THRESHOLD) {
+                left.compute();
+                right.compute();
+            } else {
+                invokeAll(left, right);
+            }
+
+            if (src[mid - 1] <= src[mid]) {
+                System.arraycopy(src, lo, dst, lo, length);
+                return;
+            }
+            merge(src, lo, mid, hi, dst);
+        }
+    }
+
+    // Merges src[lo, mid) and src[mid, hi) into dst[lo, hi); ties are taken
+    // from the left range to keep the sort stable
+    private static void merge(long[] src, int lo, int mid, int hi, long[] dst) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(k - lo);
+            SortMetrics.moves(hi - lo);
+        }
+        while (i < mid) {
+            dst[k++] = src[i++];
+        }
+        while (j < hi) {
+            dst[k++] = src[j++];
+        }
+    }
+
+    // Introsort: median-of-three or ninther pivot, heapsort once the depth
+    // limit is hit, insertion sort for small ranges
+    static void introSort(long[] arr) {
+        introSort(arr, 0, arr.length - 1, 2 * QuickSort.log2(arr.length));
+    }
+
+    private static void introSort(long[] arr, int low, int high, int depthLimit) {
+        while (high - low + 1 > QUICK_INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(arr, low, high);
+                return;
+            }
+            depthLimit--;
+
+            swap(arr, choosePivot(arr, low, high), high);
+            int pivotIndex = partition(arr, low, high);
+
+            if (pivotIndex - low < high - pivotIndex) {
+                introSort(arr, low, pivotIndex - 1, depthLimit);
+                low = pivotIndex + 1;
+            } else {
+                introSort(arr, pivotIndex + 1, high, depthLimit);
+                high = pivotIndex - 1;
+            }
+        }
+        insertionSort(arr, low, high + 1);
+    }
+
+    private static int partition(long[] arr, int low, int high) {
+        long pivot = arr[high];
+        int i = low - 1;
+        for (int j = low; j < high; j++) {
+            if (arr[j] < pivot) {
+                swap(arr, ++i, j);
+            }
+        }
+        swap(arr, i + 1, high);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(high - low);
+            SortMetrics.moves(2L * (i - low + 2));
+        }
+        return i + 1;
+    }
+
+    private static int choosePivot(long[] arr, int low, int high) {
+        int mid = (low + high) >>> 1;
+        int size = high - low + 1;
+        if (size <= NINTHER_THRESHOLD) {
+            return medianOfThree(arr, low, mid, high);
+        }
+        int step = size / 8;
+        int first = medianOfThree(arr, low, low + step, low + 2 * step);
+        int middle = medianOfThree(arr, mid - step, mid, mid + step);
+        int last = medianOfThree(arr, high - 2 * step, high - step, high);
+        return medianOfThree(arr, first, middle, last);
+    }
+
+    private static int medianOfThree(long[] arr, int a, int b, int c) {
+        if (arr[a] < arr[b]) {
+            if (arr[b] < arr[c]) {
+                return b;
+            }
+            return arr[a] < arr[c] ? c : a;
+        }
+        if (arr[a] < arr[c]) {
+            return a;
+        }
+        return arr[b] < arr[c] ? c : b;
+    }
+
+    // Heapsort over arr[low..high], the worst-case fallback for introsort
+    private static void heapSort(long[] arr, int low, int high) {
+        int size = high - low + 1;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(arr, low, i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(arr, low, low + end);
+            siftDown(arr, low, 0, end);
+        }
+    }
+
+    private static void siftDown(long[] arr, int offset, int root, int size) {
+        long value = arr[offset + root];
+        int child;
+        while ((child = 2 * root + 1) < size) {
+            if (child + 1 < size && arr[offset + child] < arr[offset + child + 1]) {
+                child++;
+            }
+            if (value >= arr[offset + child]) {
+                break;
+            }
+            arr[offset + root] = arr[offset + child];
+            root = child;
+        }
+        arr[offset + root] = value;
+    }
+
+    // Sorts arr[lo, hi)
+    private static void insertionSort(long[] arr, int lo, int hi) {
+        for (int i = lo + 1; i < hi; i++) {
+            long key = arr[i];
+            int j = i - 1;
+            while (j >= lo && arr[j] > key) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = key;
+        }
+    }
+
+    private static void swap(long[] arr, int i, int j) {
+        long temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+}
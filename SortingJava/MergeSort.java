@@ -1,5 +1,33 @@
+package SortingJava;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
 public class MergeSort {
-    public static void main(String[] args) {
+    // Ranges at or below this size are finished with insertion sort
+    public static final int DEFAULT_INSERTION_CUTOFF = 32;
+
+    // Ranges at or below this size are not split into further fork-join tasks
+    static final int PARALLEL_THRESHOLD = 1 << 13;
+
+    // Merges producing at least this many elements are split across cores
+    private static final int PARALLEL_MERGE_THRESHOLD = 1 << 16;
+
+    // The set operations gallop through the longer input once it is at
+    // least this many times longer than the other one
+    static final int GALLOP_RATIO = 8;
+
+    public static void main(String[] args) throws IOException {
+        // With arguments, sort a file or stdin in batch mode; see SortCli
+        if (args.length > 0) {
+            SortCli.run(args, "merge");
+            return;
+        }
         int[] arr = {12, 11, 13, 5, 6, 7};
         
         System.out.println("Original Array:");
@@ -9,11 +37,50 @@ public class MergeSort {
         
         System.out.println("\nSorted Array:");
         printArray(arr);
+
+        int[] large = new int[100_000];
+        Random random = new Random(42);
+        for (int i = 0; i < large.length; i++) {
+            large[i] = random.nextInt();
+        }
+        parallelMergeSort(large);
+        System.out.println("\nParallel sort of " + large.length + " elements sorted: " + isSorted(large));
+
+        long[] timestamps = new long[100_000];
+        for (int i = 0; i < timestamps.length; i++) {
+            timestamps[i] = random.nextLong();
+        }
+        parallelMergeSort(timestamps);
+        long[] expected = timestamps.clone();
+        Arrays.sort(expected);
+        System.out.println("Parallel sort of " + timestamps.length + " longs sorted: "
+                + Arrays.equals(timestamps, expected));
+
+        int[] ids = { 9, 3, 7, 3, 1, 9, 5 };
+        int distinct = sortDistinct(ids);
+        int[] other = { 2, 3, 5, 8 };
+        int[] out = new int[distinct + other.length];
+        System.out.println("\nDistinct: " + Arrays.toString(Arrays.copyOf(ids, distinct)));
+        int[] unique = Arrays.copyOf(ids, distinct);
+        System.out.println("Union: " + Arrays.toString(Arrays.copyOf(out, union(unique, other, out))));
+        System.out.println("Intersection: " + Arrays.toString(Arrays.copyOf(out, intersect(unique, other, out))));
+        System.out.println("Difference: " + Arrays.toString(Arrays.copyOf(out, difference(unique, other, out))));
     }
     
     // Merge Sort function
     public static void mergeSort(int[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        mergeSort(arr, 1);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "mergeSort", start);
+        }
+    }
+
+    private static void mergeSort(int[] arr, int depth) {
         int length = arr.length;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.depth(depth);
+        }
         
         // Base case: If the array has one or zero elements, it's already sorted
         if (length <= 1) {
@@ -24,6 +91,10 @@ public class MergeSort {
         int mid = length / 2;
         int[] left = new int[mid];
         int[] right = new int[length - mid];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) length * Integer.BYTES);
+            SortMetrics.moves(length);
+        }
         
         for (int i = 0; i < mid; i++) {
             left[i] = arr[i];
@@ -33,8 +104,8 @@ public class MergeSort {
         }
         
         // Recursively sort the left and right halves
-        mergeSort(left);
-        mergeSort(right);
+        mergeSort(left, depth + 1);
+        mergeSort(right, depth + 1);
         
         // Merge the sorted halves
         merge(arr, left, right);
@@ -54,6 +125,11 @@ public class MergeSort {
                 arr[k++] = right[j++];
             }
         }
+        if (SortMetrics.ENABLED) {
+            // One comparison per element emitted while both halves had input
+            SortMetrics.comparisons(k);
+            SortMetrics.moves(leftLength + rightLength);
+        }
         
         // Copy any remaining elements from the left and right subarrays
         while (i < leftLength) {
@@ -64,11 +140,580 @@ public class MergeSort {
         }
     }
     
+    // Natural Merge Sort function
+    // Merges the ascending and descending runs already present in the input,
+    // so nearly sorted arrays take close to linear time
+    public static void naturalMergeSort(int[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        NaturalMergeSort.sort(arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "naturalMergeSort", start);
+        }
+    }
+
+    // Parallel Merge Sort function
+    // Allocates a single auxiliary buffer up front and swaps the roles of the
+    // source and destination arrays at each level instead of copying halves
+    public static void parallelMergeSort(int[] arr) {
+        parallelMergeSort(arr, DEFAULT_INSERTION_CUTOFF);
+    }
+
+    public static void parallelMergeSort(int[] arr, int insertionCutoff) {
+        if (insertionCutoff < 1) {
+            throw new IllegalArgumentException("insertionCutoff must be positive: " + insertionCutoff);
+        }
+        if (arr.length <= 1) {
+            return;
+        }
+
+        // Both arrays hold the same data, so either can serve as the source of
+        // a leaf range; each level reads from one and writes into the other
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[] aux = arr.clone();
+        ForkJoinPool.commonPool().invoke(new SortTask(aux, arr, 0, arr.length, insertionCutoff, 1));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) aux.length * Integer.BYTES);
+            SortMetrics.moves(aux.length);
+            SortMetrics.phase("MergeSort", "parallelMergeSort", start);
+        }
+    }
+
+    // Sorts arr[0, count) with aux[0, count) as the merge buffer, so callers
+    // that sort many arrays in turn, like ExternalSort, allocate it once
+    static void parallelMergeSort(int[] arr, int count, int[] aux) {
+        if (count < 0 || count > arr.length || count > aux.length) {
+            throw new IllegalArgumentException("count " + count + " does not fit arrays of length "
+                    + arr.length + " and " + aux.length);
+        }
+        if (count <= 1) {
+            return;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        System.arraycopy(arr, 0, aux, 0, count);
+        ForkJoinPool.commonPool().invoke(new SortTask(aux, arr, 0, count, DEFAULT_INSERTION_CUTOFF, 1));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(count);
+            SortMetrics.phase("MergeSort", "parallelMergeSort", start);
+        }
+    }
+
+    // Stable parallel merge sort for long[]
+    public static void parallelMergeSort(long[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        LongSort.mergeSort(arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "long", start);
+        }
+    }
+
+    // Parallel merge sort for double[] in the order of Double.compare: -0.0
+    // before 0.0 and NaN last. Sorts long keys from TotalOrder.
+    public static void parallelMergeSort(double[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        long[] keys = TotalOrder.toKeys(arr);
+        LongSort.mergeSort(keys);
+        TotalOrder.fromKeys(keys, arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "double", start);
+        }
+    }
+
+    // float[] counterpart of parallelMergeSort(double[]); the int keys go
+    // through parallelMergeSort(int[])
+    public static void parallelMergeSort(float[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[] keys = TotalOrder.toKeys(arr);
+        parallelMergeSort(keys);
+        TotalOrder.fromKeys(keys, arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "float", start);
+        }
+    }
+
+    // Stable parallel merge sort for objects; equal elements keep their order
+    public static <T> void parallelMergeSort(T[] arr, Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("comparator must not be null");
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        ObjectSort.mergeSort(arr, comparator);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "object", start);
+        }
+    }
+
+    // Sorts src[lo, hi) into dst[lo, hi); on entry both arrays hold the same
+    // elements in that range
+    private static final class SortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int[] dst;
+        private final int lo;
+        private final int hi;
+        private final int insertionCutoff;
+        private final int depth;
+
+        SortTask(int[] src, int[] dst, int lo, int hi, int insertionCutoff, int depth) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.insertionCutoff = insertionCutoff;
+            this.depth = depth;
+        }
+
+        @Override
+        protected void compute() {
+            int length = hi - lo;
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depth(depth);
+            }
+            if (length <= insertionCutoff) {
+                SortingNetwork.sort(dst, lo, hi);
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+
+            // Sort both halves into src so they can be merged back into dst
+            SortTask left = new SortTask(dst, src, lo, mid, insertionCutoff, depth + 1);
+            SortTask right = new SortTask(dst, src, mid, hi, insertionCutoff, depth + 1);
+            if (length <= PARALLEL_THRESHOLD) {
+                left.compute();
+                right.compute();
+            } else {
+                invokeAll(left, right);
+            }
+
+            // Halves already in order need no comparisons, only a copy
+            if (src[mid - 1] <= src[mid]) {
+                System.arraycopy(src, lo, dst, lo, length);
+                if (SortMetrics.ENABLED) {
+                    SortMetrics.comparisons(1);
+                    SortMetrics.moves(length);
+                }
+                return;
+            }
+            if (length >= PARALLEL_MERGE_THRESHOLD) {
+                parallelMerge(src, lo, mid, hi, dst);
+            } else {
+                merge(src, lo, mid, hi, dst);
+            }
+        }
+    }
+
+    // Merge function for two adjacent sorted ranges src[lo, mid) and src[mid, hi)
+    // into dst[lo, hi); ties are taken from the left range to keep the sort stable
+    public static void merge(int[] src, int lo, int mid, int hi, int[] dst) {
+        int i = lo, j = mid, k = lo;
+
+        while (i < mid && j < hi) {
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(k - lo);
+            SortMetrics.moves(hi - lo);
+        }
+
+        while (i < mid) {
+            dst[k++] = src[i++];
+        }
+        while (j < hi) {
+            dst[k++] = src[j++];
+        }
+    }
+
+    // Parallel merge with the same contract as merge(arr, left, right)
+    public static void parallelMerge(int[] arr, int[] left, int[] right) {
+        int n = left.length + right.length;
+        if (arr.length < n) {
+            throw new IllegalArgumentException("Output array is too small: " + arr.length + " < " + n);
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int slices = sliceCount(n);
+        if (slices == 1) {
+            merge(arr, left, right);
+        } else {
+            ForkJoinPool.commonPool().invoke(new MergePathTask(left, 0, left.length, right, 0, right.length,
+                    arr, 0, slices));
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "parallelMerge", start);
+        }
+    }
+
+    // Parallel merge of src[lo, mid) and src[mid, hi) into dst[lo, hi)
+    public static void parallelMerge(int[] src, int lo, int mid, int hi, int[] dst) {
+        int slices = sliceCount(hi - lo);
+        if (slices == 1) {
+            merge(src, lo, mid, hi, dst);
+            return;
+        }
+        MergePathTask task = new MergePathTask(src, lo, mid, src, mid, hi, dst, lo, slices);
+        if (ForkJoinTask.inForkJoinPool()) {
+            task.invoke();
+        } else {
+            ForkJoinPool.commonPool().invoke(task);
+        }
+    }
+
+    // One slice per worker, but never slices smaller than the sequential threshold
+    private static int sliceCount(int n) {
+        int byParallelism = ForkJoinPool.getCommonPoolParallelism();
+        int bySize = n / PARALLEL_THRESHOLD;
+        return Math.max(1, Math.min(byParallelism, bySize));
+    }
+
+    // Merge-path partitioning: the output is cut into equal slices, and the
+    // start of every slice in both inputs is found by a binary search along
+    // its diagonal, so each slice merges independently of the others
+    private static final class MergePathTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int aLo;
+        private final int aHi;
+        private final int[] b;
+        private final int bLo;
+        private final int bHi;
+        private final int[] dst;
+        private final int dstLo;
+        private final int slices;
+
+        MergePathTask(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] dst, int dstLo, int slices) {
+            this.a = a;
+            this.aLo = aLo;
+            this.aHi = aHi;
+            this.b = b;
+            this.bLo = bLo;
+            this.bHi = bHi;
+            this.dst = dst;
+            this.dstLo = dstLo;
+            this.slices = slices;
+        }
+
+        @Override
+        protected void compute() {
+            int n = (aHi - aLo) + (bHi - bLo);
+            RecursiveAction[] tasks = new RecursiveAction[slices];
+            int diagonal = 0;
+            int i = 0;
+            for (int s = 0; s < slices; s++) {
+                int nextDiagonal = (int) ((long) n * (s + 1) / slices);
+                int nextI = splitPoint(a, aLo, aHi, b, bLo, bHi, nextDiagonal);
+                int start = diagonal;
+                int fromA = i;
+                int toA = nextI;
+                int fromB = diagonal - i;
+                int toB = nextDiagonal - nextI;
+                tasks[s] = new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        merge(a, aLo + fromA, aLo + toA, b, bLo + fromB, bLo + toB, dst, dstLo + start);
+                    }
+                };
+                diagonal = nextDiagonal;
+                i = nextI;
+            }
+            invokeAll(tasks);
+        }
+    }
+
+    // Number of elements taken from a among the first diagonal outputs of a
+    // stable merge of a[aLo, aHi) and b[bLo, bHi)
+    static int splitPoint(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int diagonal) {
+        int low = Math.max(0, diagonal - (bHi - bLo));
+        int high = Math.min(diagonal, aHi - aLo);
+        int compared = 0;
+        while (low < high) {
+            int i = (low + high) >>> 1;
+            compared++;
+            // a wins ties, so a[i] precedes b[diagonal - i - 1] when it is not greater
+            if (a[aLo + i] <= b[bLo + diagonal - i - 1]) {
+                low = i + 1;
+            } else {
+                high = i;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(compared);
+        }
+        return low;
+    }
+
+    // Merges a[aLo, aHi) and b[bLo, bHi) into dst starting at k
+    private static void merge(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] dst, int k) {
+        int i = aLo, j = bLo;
+
+        while (i < aHi && j < bHi) {
+            if (a[i] <= b[j]) {
+                dst[k++] = a[i++];
+            } else {
+                dst[k++] = b[j++];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons((i - aLo) + (j - bLo));
+            SortMetrics.moves((aHi - aLo) + (bHi - bLo));
+        }
+
+        while (i < aHi) {
+            dst[k++] = a[i++];
+        }
+        while (j < bHi) {
+            dst[k++] = b[j++];
+        }
+    }
+
+    // Sorts arr and removes repeated values in the same pass: both halves are
+    // sorted as in parallelMergeSort and the final merge drops duplicates.
+    // Returns the number of distinct values, which end up in ascending order
+    // in arr[0, count); the rest of arr is left unspecified.
+    public static int sortDistinct(int[] arr) {
+        int n = arr.length;
+        if (n <= 1) {
+            return n;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int count;
+        if (n <= DEFAULT_INSERTION_CUTOFF) {
+            SortingNetwork.sort(arr, 0, n);
+            // Writes never pass reads, so compacting in place is safe
+            count = appendDistinct(arr, 0, n, arr, 0, 0);
+        } else {
+            int[] aux = arr.clone();
+            int mid = n >>> 1;
+            SortTask left = new SortTask(arr, aux, 0, mid, DEFAULT_INSERTION_CUTOFF, 1);
+            SortTask right = new SortTask(arr, aux, mid, n, DEFAULT_INSERTION_CUTOFF, 1);
+            ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(left, right);
+                }
+            });
+            count = union(aux, 0, mid, aux, mid, n, arr, 0);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated((long) n * Integer.BYTES);
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("MergeSort", "sortDistinct", start);
+        }
+        return count;
+    }
+
+    // *NOTE*
+    // union, intersect and difference take ascending inputs and write the
+    // distinct values of the result in ascending order into out, returning
+    // how many were written. Repeated values in an input are emitted once.
+    // out must not overlap the inputs and must be large enough for the worst
+    // case, which is checked up front. Inputs are not checked for order.
+
+    // Values in a or b; out needs room for a.length + b.length
+    public static int union(int[] a, int[] b, int[] out) {
+        checkCapacity(out, (long) a.length + b.length);
+        return union(a, 0, a.length, b, 0, b.length, out, 0);
+    }
+
+    // Values in both a and b; out needs room for the shorter input
+    public static int intersect(int[] a, int[] b, int[] out) {
+        checkCapacity(out, Math.min(a.length, b.length));
+        return intersect(a, 0, a.length, b, 0, b.length, out, 0);
+    }
+
+    // Values in a but not in b; out needs room for a.length
+    public static int difference(int[] a, int[] b, int[] out) {
+        checkCapacity(out, a.length);
+        return difference(a, 0, a.length, b, 0, b.length, out, 0);
+    }
+
+    private static void checkCapacity(int[] out, long required) {
+        if (out.length < required) {
+            throw new IllegalArgumentException("Output array is too small: " + out.length + " < " + required);
+        }
+    }
+
+    private static int union(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] out, int outLo) {
+        // Union is symmetric, so let a be the longer input
+        if (aHi - aLo < bHi - bLo) {
+            return union(b, bLo, bHi, a, aLo, aHi, out, outLo);
+        }
+        int i = aLo, j = bLo, k = outLo;
+        if (isSkewed(aHi - aLo, bHi - bLo)) {
+            // Copy the stretch of a below each value of b without comparing it
+            for (; j < bHi && i < aHi; j++) {
+                int value = b[j];
+                int end = NaturalMergeSort.firstNotLess(a, i, aHi, value);
+                k = appendDistinct(a, i, end, out, outLo, k);
+                i = end;
+                if (k == outLo || out[k - 1] != value) {
+                    out[k++] = value;
+                }
+            }
+        } else {
+            while (i < aHi && j < bHi) {
+                int value;
+                if (a[i] < b[j]) {
+                    value = a[i++];
+                } else if (a[i] > b[j]) {
+                    value = b[j++];
+                } else {
+                    value = a[i++];
+                    j++;
+                }
+                if (k == outLo || out[k - 1] != value) {
+                    out[k++] = value;
+                }
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.comparisons((i - aLo) + (j - bLo));
+            }
+        }
+        // At most one of the inputs has values left
+        k = appendDistinct(b, j, bHi, out, outLo, k);
+        return appendDistinct(a, i, aHi, out, outLo, k);
+    }
+
+    private static int intersect(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] out, int outLo) {
+        if (aHi - aLo < bHi - bLo) {
+            return intersect(b, bLo, bHi, a, aLo, aHi, out, outLo);
+        }
+        int i = aLo, j = bLo, k = outLo;
+        if (isSkewed(aHi - aLo, bHi - bLo)) {
+            // Look every value of b up in a, resuming from the previous match
+            for (; j < bHi && i < aHi; j++) {
+                int value = b[j];
+                i = NaturalMergeSort.firstNotLess(a, i, aHi, value);
+                if (i < aHi && a[i] == value && (k == outLo || out[k - 1] != value)) {
+                    out[k++] = value;
+                }
+            }
+            return k;
+        }
+        while (i < aHi && j < bHi) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                int value = a[i++];
+                j++;
+                if (k == outLo || out[k - 1] != value) {
+                    out[k++] = value;
+                }
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons((i - aLo) + (j - bLo));
+        }
+        return k;
+    }
+
+    private static int difference(int[] a, int aLo, int aHi, int[] b, int bLo, int bHi, int[] out, int outLo) {
+        int i = aLo, j = bLo, k = outLo;
+        int aLength = aHi - aLo;
+        int bLength = bHi - bLo;
+        if (isSkewed(bLength, aLength)) {
+            // Few values to keep: look each one up in b
+            for (; i < aHi && j < bHi; i++) {
+                int value = a[i];
+                j = NaturalMergeSort.firstNotLess(b, j, bHi, value);
+                if ((j == bHi || b[j] != value) && (k == outLo || out[k - 1] != value)) {
+                    out[k++] = value;
+                }
+            }
+            return appendDistinct(a, i, aHi, out, outLo, k);
+        }
+        if (isSkewed(aLength, bLength)) {
+            // Few values to remove: copy the stretch of a below each of them
+            // and skip the copies of it in a
+            for (; j < bHi && i < aHi; j++) {
+                int value = b[j];
+                int end = NaturalMergeSort.firstNotLess(a, i, aHi, value);
+                k = appendDistinct(a, i, end, out, outLo, k);
+                i = NaturalMergeSort.firstGreater(a, end, aHi, value);
+            }
+            return appendDistinct(a, i, aHi, out, outLo, k);
+        }
+        while (i < aHi && j < bHi) {
+            if (a[i] < b[j]) {
+                int value = a[i++];
+                if (k == outLo || out[k - 1] != value) {
+                    out[k++] = value;
+                }
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                i++;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons((i - aLo) + (j - bLo));
+        }
+        return appendDistinct(a, i, aHi, out, outLo, k);
+    }
+
+    private static boolean isSkewed(int longer, int shorter) {
+        return longer >= (long) GALLOP_RATIO * Math.max(shorter, 1);
+    }
+
+    // Appends src[from, to) to out at k, skipping values equal to the last
+    // one written since outLo; returns the new end of out
+    private static int appendDistinct(int[] src, int from, int to, int[] out, int outLo, int k) {
+        for (int i = from; i < to; i++) {
+            int value = src[i];
+            if (k == outLo || out[k - 1] != value) {
+                out[k++] = value;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(to - from);
+        }
+        return k;
+    }
+
+    // Insertion sort over arr[lo, hi), used for small ranges
+    static void insertionSort(int[] arr, int lo, int hi) {
+        long shifts = 0;
+        for (int i = lo + 1; i < hi; i++) {
+            int key = arr[i];
+            int j = i - 1;
+            while (j >= lo && arr[j] > key) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = key;
+            shifts += i - 1 - j;
+        }
+        if (SortMetrics.ENABLED && hi > lo) {
+            // Every shift costs a comparison, and each element also needs at
+            // most one failing comparison to stop
+            SortMetrics.comparisons(shifts + (hi - lo - 1));
+            SortMetrics.moves(shifts + (hi - lo - 1));
+        }
+    }
+
+    // Utility function to check that an array is in ascending order
+    public static boolean isSorted(int[] arr) {
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i - 1] > arr[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     // Utility function to print an array
     public static void printArray(int[] arr) {
+        StringBuilder line = new StringBuilder(arr.length * 8);
         for (int num : arr) {
-            System.out.print(num + " ");
+            line.append(num).append(' ');
         }
-        System.out.println();
+        System.out.println(line);
     }
 }
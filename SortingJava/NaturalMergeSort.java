@@ -0,0 +1,244 @@
+package SortingJava;
+
+import java.util.Arrays;
+
+// Natural merge sort, reached through MergeSort.naturalMergeSort
+//
+// One scan cuts the array into maximal runs. Ascending runs are kept and
+// strictly descending ones reversed; strictly, so that reversing never
+// reorders equal keys. Runs shorter than MIN_RUN are extended to that
+// length with binary insertion sort. The runs are then merged as a balanced
+// binary tree over the run list, ping-ponging between the array and one
+// buffer of the same size as MergeSort.parallelMergeSort does. r runs take
+// ceil(log2 r) levels of merging: sorted input costs one scan, and input
+// made of a few long runs a few linear passes.
+//
+// Inside a merge, once one side has supplied GALLOP_AFTER elements in a
+// row, the rest of its block is found by exponential search and copied in
+// one go, so runs that interleave in long blocks merge in close to
+// O(log n) comparisons per block.
+final class NaturalMergeSort {
+    // Runs are extended to at least this length with insertion sort
+    private static final int MIN_RUN = MergeSort.DEFAULT_INSERTION_CUTOFF;
+
+    // Consecutive elements taken from one side before a merge searches for
+    // the end of that side's block instead of comparing one at a time
+    private static final int GALLOP_AFTER = 8;
+
+    private NaturalMergeSort() {
+    }
+
+    static void sort(int[] arr) {
+        int n = arr.length;
+        if (n < 2) {
+            return;
+        }
+        // bounds[r] is the start of run r and bounds[runs] == n
+        int[] bounds = findRuns(arr);
+        int runs = bounds.length - 1;
+        if (runs == 1) {
+            return;
+        }
+
+        // Both arrays start out with every run in place, so a single run
+        // is already sorted in whichever array it is wanted
+        int[] aux = arr.clone();
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) n * Integer.BYTES);
+            SortMetrics.moves(n);
+        }
+        mergeRuns(aux, arr, bounds, 0, runs);
+    }
+
+    // Merges runs [r0, r1) of src into dst; on entry both arrays hold the
+    // same elements in that range. Depth first, so the merges of a subtree
+    // run while its data is still in cache.
+    private static void mergeRuns(int[] src, int[] dst, int[] bounds, int r0, int r1) {
+        if (r1 - r0 < 2) {
+            return;
+        }
+        int mid = (r0 + r1) >>> 1;
+        mergeRuns(dst, src, bounds, r0, mid);
+        mergeRuns(dst, src, bounds, mid, r1);
+        merge(src, bounds[r0], bounds[mid], bounds[r1], dst);
+    }
+
+    // Returns the run starts followed by arr.length; every run but the last
+    // is at least MIN_RUN long, which bounds how many there can be
+    private static int[] findRuns(int[] arr) {
+        int n = arr.length;
+        int[] bounds = new int[n / MIN_RUN + 2];
+        int runs = 0;
+        int lo = 0;
+        while (lo < n) {
+            int hi = runEnd(arr, lo);
+            if (hi - lo < MIN_RUN && hi < n) {
+                int sortedEnd = hi;
+                hi = Math.min(n, lo + MIN_RUN);
+                binaryInsertionSort(arr, lo, sortedEnd, hi);
+            }
+            bounds[runs++] = lo;
+            lo = hi;
+        }
+        bounds[runs] = n;
+        return Arrays.copyOf(bounds, runs + 1);
+    }
+
+    // Extends the sorted range arr[lo, sortedEnd) to arr[lo, hi). Each value's
+    // place is found with firstGreater, so it costs O(log MIN_RUN) comparisons,
+    // and the larger values move up in one arraycopy. Inserting before the
+    // first greater value keeps equal values in input order.
+    private static void binaryInsertionSort(int[] arr, int lo, int sortedEnd, int hi) {
+        long compared = 0;
+        long moved = 0;
+        for (int i = sortedEnd; i < hi; i++) {
+            int value = arr[i];
+            int at = firstGreater(arr, lo, i, value);
+            System.arraycopy(arr, at, arr, at + 1, i - at);
+            arr[at] = value;
+            if (SortMetrics.ENABLED) {
+                // About one comparison per bit of the searched length
+                compared += 32 - Integer.numberOfLeadingZeros(i - lo);
+                moved += i - at + 1;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(compared);
+            SortMetrics.moves(moved);
+        }
+    }
+
+    // End of the run starting at lo; a strictly descending run is reversed
+    // first so that every run is ascending
+    private static int runEnd(int[] arr, int lo) {
+        int n = arr.length;
+        int hi = lo + 1;
+        if (hi == n) {
+            return n;
+        }
+        if (arr[hi] < arr[lo]) {
+            while (hi < n && arr[hi] < arr[hi - 1]) {
+                hi++;
+            }
+            for (int i = lo, j = hi - 1; i < j; i++, j--) {
+                int temp = arr[i];
+                arr[i] = arr[j];
+                arr[j] = temp;
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(hi - lo);
+            }
+        } else {
+            while (hi < n && arr[hi] >= arr[hi - 1]) {
+                hi++;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(hi - lo);
+        }
+        return hi;
+    }
+
+    // Merges src[lo, mid) and src[mid, hi) into dst[lo, hi); ties go to the
+    // left run, which keeps the sort stable
+    private static void merge(int[] src, int lo, int mid, int hi, int[] dst) {
+        if (src[mid - 1] <= src[mid]) {
+            System.arraycopy(src, lo, dst, lo, hi - lo);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.comparisons(1);
+                SortMetrics.moves(hi - lo);
+            }
+            return;
+        }
+        int i = lo, j = mid, k = lo;
+        int leftStreak = 0, rightStreak = 0;
+        long compared = 0;
+        while (i < mid && j < hi) {
+            compared++;
+            if (src[i] <= src[j]) {
+                dst[k++] = src[i++];
+                rightStreak = 0;
+                if (++leftStreak >= GALLOP_AFTER && i < mid) {
+                    // Everything left of the first value above src[j] goes next
+                    int end = firstGreater(src, i, mid, src[j]);
+                    System.arraycopy(src, i, dst, k, end - i);
+                    k += end - i;
+                    i = end;
+                    leftStreak = 0;
+                }
+            } else {
+                dst[k++] = src[j++];
+                leftStreak = 0;
+                if (++rightStreak >= GALLOP_AFTER && j < hi) {
+                    // Everything right of the first value not below src[i] goes next
+                    int end = firstNotLess(src, j, hi, src[i]);
+                    System.arraycopy(src, j, dst, k, end - j);
+                    k += end - j;
+                    j = end;
+                    rightStreak = 0;
+                }
+            }
+        }
+        System.arraycopy(src, i, dst, k, mid - i);
+        System.arraycopy(src, j, dst, k + mid - i, hi - j);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(compared);
+            SortMetrics.moves(hi - lo);
+        }
+    }
+
+    // First index in the sorted range a[from, to) whose value is not less
+    // than key, or to. Probes at doubling distances from `from` before a
+    // binary search, so the cost is logarithmic in the distance from `from`
+    // rather than in the length of the range.
+    static int firstNotLess(int[] a, int from, int to, int key) {
+        int lo = from;
+        int hi = to;
+        int step = 1;
+        // Everything before lo is less than key; step > 0 stops at overflow
+        while (step > 0 && step <= to - lo) {
+            int probe = lo + step - 1;
+            if (a[probe] >= key) {
+                hi = probe;
+                break;
+            }
+            lo = probe + 1;
+            step <<= 1;
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    // First index in the sorted range a[from, to) whose value is greater
+    // than key, or to; the same search as firstNotLess
+    static int firstGreater(int[] a, int from, int to, int key) {
+        int lo = from;
+        int hi = to;
+        int step = 1;
+        while (step > 0 && step <= to - lo) {
+            int probe = lo + step - 1;
+            if (a[probe] > key) {
+                hi = probe;
+                break;
+            }
+            lo = probe + 1;
+            step <<= 1;
+        }
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] <= key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
@@ -0,0 +1,218 @@
+package SortingJava;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// T[] ports of the ping-pong merge sort behind MergeSort.parallelMergeSort
+// and of the introsort behind QuickSort.quickSort, ordered by a Comparator
+// instead of boxing keys into Integer[]; see LongSort for why the loops are
+// not shared between the element types
+final class ObjectSort {
+    // The thresholds are the ones of the int sorts, so the variants stay in step
+    private static final int MERGE_INSERTION_CUTOFF = MergeSort.DEFAULT_INSERTION_CUTOFF;
+    private static final int PARALLEL_THRESHOLD = MergeSort.PARALLEL_THRESHOLD;
+    private static final int QUICK_INSERTION_THRESHOLD = QuickSort.INSERTION_THRESHOLD;
+    private static final int NINTHER_THRESHOLD = QuickSort.NINTHER_THRESHOLD;
+
+    private ObjectSort() {
+    }
+
+    // Stable parallel merge sort with a single auxiliary buffer
+    static <T> void mergeSort(T[] arr, Comparator<? super T> c) {
+        if (arr.length <= 1) {
+            return;
+        }
+        T[] aux = arr.clone();
+        if (SortMetrics.ENABLED) {
+            // Reference slots only; the elements themselves are shared
+            SortMetrics.allocated((long) aux.length * Integer.BYTES);
+        }
+        ForkJoinPool.commonPool().invoke(new SortTask<>(aux, arr, 0, arr.length, c));
+    }
+
+    // Sorts src[lo, hi) into dst[lo, hi); on entry both arrays hold the same
+    // elements in that range
+    private static final class SortTask<T> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final transient T[] src;
+        private final transient T[] dst;
+        private final int lo;
+        private final int hi;
+        private final transient Comparator<? super T> c;
+
+        SortTask(T[] src, T[] dst, int lo, int hi, Comparator<? super T> c) {
+            this.src = src;
+            this.dst = dst;
+            this.lo = lo;
+            this.hi = hi;
+            this.c = c;
+        }
+
+        @Override
+        protected void compute() {
+            int length = hi - lo;
+            if (length <= MERGE_INSERTION_CUTOFF) {
+                insertionSort(dst, lo, hi, c);
+                return;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            SortTask<T> left = new SortTask<>(dst, src, lo, mid, c);
+            SortTask<T> right = new SortTask<>(dst, src, mid, hi, c);
+            if (length <= PARALLEL_THRESHOLD) {
+                left.compute();
+                right.compute();
+            } else {
+                invokeAll(left, right);
+            }
+
+            if (c.compare(src[mid - 1], src[mid]) <= 0) {
+                System.arraycopy(src, lo, dst, lo, length);
+                return;
+            }
+            merge(src, lo, mid, hi, dst, c);
+        }
+    }
+
+    // Merges src[lo, mid) and src[mid, hi) into dst[lo, hi); ties are taken
+    // from the left range to keep the sort stable
+    private static <T> void merge(T[] src, int lo, int mid, int hi, T[] dst, Comparator<? super T> c) {
+        int i = lo, j = mid, k = lo;
+        while (i < mid && j < hi) {
+            if (c.compare(src[i], src[j]) <= 0) {
+                dst[k++] = src[i++];
+            } else {
+                dst[k++] = src[j++];
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(k - lo);
+            SortMetrics.moves(hi - lo);
+        }
+        while (i < mid) {
+            dst[k++] = src[i++];
+        }
+        while (j < hi) {
+            dst[k++] = src[j++];
+        }
+    }
+
+    // Introsort: median-of-three or ninther pivot, heapsort once the depth
+    // limit is hit, insertion sort for small ranges. Not stable.
+    static <T> void introSort(T[] arr, Comparator<? super T> c) {
+        introSort(arr, 0, arr.length - 1, 2 * QuickSort.log2(arr.length), c);
+    }
+
+    private static <T> void introSort(T[] arr, int low, int high, int depthLimit, Comparator<? super T> c) {
+        while (high - low + 1 > QUICK_INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(arr, low, high, c);
+                return;
+            }
+            depthLimit--;
+
+            swap(arr, choosePivot(arr, low, high, c), high);
+            int pivotIndex = partition(arr, low, high, c);
+
+            if (pivotIndex - low < high - pivotIndex) {
+                introSort(arr, low, pivotIndex - 1, depthLimit, c);
+                low = pivotIndex + 1;
+            } else {
+                introSort(arr, pivotIndex + 1, high, depthLimit, c);
+                high = pivotIndex - 1;
+            }
+        }
+        insertionSort(arr, low, high + 1, c);
+    }
+
+    private static <T> int partition(T[] arr, int low, int high, Comparator<? super T> c) {
+        T pivot = arr[high];
+        int i = low - 1;
+        for (int j = low; j < high; j++) {
+            if (c.compare(arr[j], pivot) < 0) {
+                swap(arr, ++i, j);
+            }
+        }
+        swap(arr, i + 1, high);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(high - low);
+            SortMetrics.moves(2L * (i - low + 2));
+        }
+        return i + 1;
+    }
+
+    private static <T> int choosePivot(T[] arr, int low, int high, Comparator<? super T> c) {
+        int mid = (low + high) >>> 1;
+        int size = high - low + 1;
+        if (size <= NINTHER_THRESHOLD) {
+            return medianOfThree(arr, low, mid, high, c);
+        }
+        int step = size / 8;
+        int first = medianOfThree(arr, low, low + step, low + 2 * step, c);
+        int middle = medianOfThree(arr, mid - step, mid, mid + step, c);
+        int last = medianOfThree(arr, high - 2 * step, high - step, high, c);
+        return medianOfThree(arr, first, middle, last, c);
+    }
+
+    private static <T> int medianOfThree(T[] arr, int a, int b, int d, Comparator<? super T> c) {
+        if (c.compare(arr[a], arr[b]) < 0) {
+            if (c.compare(arr[b], arr[d]) < 0) {
+                return b;
+            }
+            return c.compare(arr[a], arr[d]) < 0 ? d : a;
+        }
+        if (c.compare(arr[a], arr[d]) < 0) {
+            return a;
+        }
+        return c.compare(arr[b], arr[d]) < 0 ? d : b;
+    }
+
+    // Heapsort over arr[low..high], the worst-case fallback for introsort
+    private static <T> void heapSort(T[] arr, int low, int high, Comparator<? super T> c) {
+        int size = high - low + 1;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(arr, low, i, size, c);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(arr, low, low + end);
+            siftDown(arr, low, 0, end, c);
+        }
+    }
+
+    private static <T> void siftDown(T[] arr, int offset, int root, int size, Comparator<? super T> c) {
+        T value = arr[offset + root];
+        int child;
+        while ((child = 2 * root + 1) < size) {
+            if (child + 1 < size && c.compare(arr[offset + child], arr[offset + child + 1]) < 0) {
+                child++;
+            }
+            if (c.compare(value, arr[offset + child]) >= 0) {
+                break;
+            }
+            arr[offset + root] = arr[offset + child];
+            root = child;
+        }
+        arr[offset + root] = value;
+    }
+
+    // Sorts arr[lo, hi)
+    private static <T> void insertionSort(T[] arr, int lo, int hi, Comparator<? super T> c) {
+        for (int i = lo + 1; i < hi; i++) {
+            T key = arr[i];
+            int j = i - 1;
+            while (j >= lo && c.compare(arr[j], key) > 0) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = key;
+        }
+    }
+
+    private static void swap(Object[] arr, int i, int j) {
+        Object temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+}
@@ -1,15 +1,198 @@
 package SortingJava;
 
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
 public class QuickSort {
+    // Partitioning schemes selectable through quickSort(int[], Strategy)
+    public enum Strategy {
+        // Last element as pivot, recursion into both partitions
+        CLASSIC,
+        // Median-of-three/ninther pivot, heapsort fallback and insertion sort for small ranges
+        INTROSORT,
+        // Introsort with Dutch-national-flag partitioning that skips runs of equal keys
+        THREE_WAY,
+        // Samples the input and picks THREE_WAY when keys repeat a lot, INTROSORT otherwise
+        AUTO
+    }
+
+    // Ranges at or below this size are finished with insertion sort
+    static final int INSERTION_THRESHOLD = 16;
+
+    // Ranges above this size use Tukey's ninther instead of median-of-three
+    static final int NINTHER_THRESHOLD = 128;
+
+    // Most evenly spaced elements inspected by Strategy.AUTO; arrays under
+    // 8 * SAMPLE_SIZE are sampled at every eighth element
+    private static final int SAMPLE_SIZE = 1024;
+
+    // Ranges at or below this size are sorted sequentially by parallelQuickSort
+    public static final int DEFAULT_PARALLEL_THRESHOLD = 1 << 13;
+
     public static void quickSort(int[] arr) {
-        quickSort(arr, 0, arr.length - 1);
+        quickSort(arr, Strategy.CLASSIC);
+    }
+
+    public static void quickSort(int[] arr, Strategy strategy) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        if (strategy == Strategy.AUTO) {
+            strategy = hasManyDuplicates(arr) ? Strategy.THREE_WAY : Strategy.INTROSORT;
+        }
+        switch (strategy) {
+            case CLASSIC:
+                quickSort(arr, 0, arr.length - 1, 1);
+                break;
+            case INTROSORT:
+                introSort(arr, 0, arr.length - 1, 2 * log2(arr.length), 1);
+                break;
+            case THREE_WAY:
+                threeWaySort(arr, 0, arr.length - 1, 2 * log2(arr.length), 1);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", strategy.name(), start);
+        }
+    }
+
+    // Introsort for long[]
+    public static void quickSort(long[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        LongSort.introSort(arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "long", start);
+        }
+    }
+
+    // Introsort for double[] in the order of Double.compare: -0.0 before 0.0
+    // and NaN last. Sorts long keys from TotalOrder, so it needs one long[]
+    // of scratch space.
+    public static void quickSort(double[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        long[] keys = TotalOrder.toKeys(arr);
+        LongSort.introSort(keys);
+        TotalOrder.fromKeys(keys, arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "double", start);
+        }
+    }
+
+    // float[] counterpart of quickSort(double[]); the int keys go through the
+    // int[] sort, including its duplicate detection and sorting network
+    public static void quickSort(float[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[] keys = TotalOrder.toKeys(arr);
+        quickSort(keys, Strategy.AUTO);
+        TotalOrder.fromKeys(keys, arr);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "float", start);
+        }
+    }
+
+    // Introsort for objects; not stable, see MergeSort.parallelMergeSort(T[], Comparator)
+    public static <T> void quickSort(T[] arr, Comparator<? super T> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("comparator must not be null");
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        ObjectSort.introSort(arr, comparator);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "object", start);
+        }
+    }
+
+    // Parallel Quick Sort on the common fork-join pool
+    public static void parallelQuickSort(int[] arr) {
+        parallelQuickSort(arr, DEFAULT_PARALLEL_THRESHOLD);
+    }
+
+    public static void parallelQuickSort(int[] arr, int threshold) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        }
+        if (arr.length <= 1) {
+            return;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        boolean threeWay = hasManyDuplicates(arr);
+        ForkJoinPool.commonPool().invoke(
+                new QuickSortTask(arr, 0, arr.length - 1, 2 * log2(arr.length), 1, threshold, threeWay));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "parallelQuickSort", start);
+        }
+    }
+
+    // Partitions arr[low..high] and forks both sides while the range is above
+    // the threshold; smaller ranges, and ranges that ran out of depth, are
+    // handed to the sequential introsort
+    private static final class QuickSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int low;
+        private final int high;
+        private final int depthLimit;
+        private final int depth;
+        private final int threshold;
+        private final boolean threeWay;
+
+        QuickSortTask(int[] arr, int low, int high, int depthLimit, int depth, int threshold, boolean threeWay) {
+            this.arr = arr;
+            this.low = low;
+            this.high = high;
+            this.depthLimit = depthLimit;
+            this.depth = depth;
+            this.threshold = threshold;
+            this.threeWay = threeWay;
+        }
+
+        @Override
+        protected void compute() {
+            if (high - low + 1 <= threshold || depthLimit == 0) {
+                if (threeWay) {
+                    threeWaySort(arr, low, high, depthLimit, depth);
+                } else {
+                    introSort(arr, low, high, depthLimit, depth);
+                }
+                return;
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depth(depth);
+            }
+
+            // With many duplicates a two-way split of an equal run comes out
+            // (0, n - 1) and forks nothing, so use the same partition as threeWaySort
+            int leftEnd;
+            int rightStart;
+            if (threeWay) {
+                long bounds = threeWayPartition(arr, low, high, arr[choosePivot(arr, low, high)]);
+                leftEnd = (int) (bounds >>> 32) - 1;
+                rightStart = (int) bounds + 1;
+            } else {
+                swap(arr, choosePivot(arr, low, high), high);
+                int pivotIndex = partition(arr, low, high);
+                leftEnd = pivotIndex - 1;
+                rightStart = pivotIndex + 1;
+            }
+            invokeAll(new QuickSortTask(arr, low, leftEnd, depthLimit - 1, depth + 1, threshold, threeWay),
+                    new QuickSortTask(arr, rightStart, high, depthLimit - 1, depth + 1, threshold, threeWay));
+        }
     }
 
-    private static void quickSort(int[] arr, int low, int high) {
+    private static void quickSort(int[] arr, int low, int high, int depth) {
         if (low < high) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.depth(depth);
+            }
             int pivotIndex = partition(arr, low, high);
-            quickSort(arr, low, pivotIndex - 1);
-            quickSort(arr, pivotIndex + 1, high);
+            quickSort(arr, low, pivotIndex - 1, depth + 1);
+            quickSort(arr, pivotIndex + 1, high, depth + 1);
         }
     }
 
@@ -30,22 +213,369 @@ public class QuickSort {
         arr[i + 1] = arr[high];
         arr[high] = temp;
 
+        if (SortMetrics.ENABLED) {
+            // i - low + 1 swaps inside the loop plus the final one
+            SortMetrics.comparisons(high - low);
+            SortMetrics.moves(2L * (i - low + 2));
+        }
         return i + 1;
     }
 
-    public static void main(String[] args) {
+    // Introsort over arr[low..high]: recurses only into the smaller partition and
+    // loops on the larger one, so the stack stays O(log n), and switches to
+    // heapsort once depthLimit partitions have been spent on this range
+    private static void introSort(int[] arr, int low, int high, int depthLimit, int depth) {
+        if (SortMetrics.ENABLED) {
+            SortMetrics.depth(depth);
+        }
+        while (high - low + 1 > INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(arr, low, high);
+                return;
+            }
+            depthLimit--;
+
+            // Move the chosen pivot to the end so the existing partition can be reused
+            swap(arr, choosePivot(arr, low, high), high);
+            int pivotIndex = partition(arr, low, high);
+
+            if (pivotIndex - low < high - pivotIndex) {
+                introSort(arr, low, pivotIndex - 1, depthLimit, depth + 1);
+                low = pivotIndex + 1;
+            } else {
+                introSort(arr, pivotIndex + 1, high, depthLimit, depth + 1);
+                high = pivotIndex - 1;
+            }
+        }
+        SortingNetwork.sort(arr, low, high + 1);
+    }
+
+    // Introsort with three-way partitioning: after each pass arr[lt..gt] holds
+    // every key equal to the pivot and is never looked at again, so inputs with
+    // few distinct values sort in close to linear time
+    private static void threeWaySort(int[] arr, int low, int high, int depthLimit, int depth) {
+        if (SortMetrics.ENABLED) {
+            SortMetrics.depth(depth);
+        }
+        while (high - low + 1 > INSERTION_THRESHOLD) {
+            if (depthLimit == 0) {
+                heapSort(arr, low, high);
+                return;
+            }
+            depthLimit--;
+
+            long bounds = threeWayPartition(arr, low, high, arr[choosePivot(arr, low, high)]);
+            int lt = (int) (bounds >>> 32);
+            int gt = (int) bounds;
+
+            if (lt - low < high - gt) {
+                threeWaySort(arr, low, lt - 1, depthLimit, depth + 1);
+                low = gt + 1;
+            } else {
+                threeWaySort(arr, gt + 1, high, depthLimit, depth + 1);
+                high = lt - 1;
+            }
+        }
+        SortingNetwork.sort(arr, low, high + 1);
+    }
+
+    // Dutch-national-flag partition of arr[low..high] around pivot; returns
+    // lt in the high and gt in the low 32 bits, where arr[lt..gt] holds every
+    // key equal to the pivot
+    private static long threeWayPartition(int[] arr, int low, int high, int pivot) {
+        int lt = low;
+        int gt = high;
+        int i = low;
+        long compared = 0;
+        long swaps = 0;
+        while (i <= gt) {
+            if (arr[i] < pivot) {
+                swap(arr, lt++, i++);
+                compared++;
+                swaps++;
+            } else if (arr[i] > pivot) {
+                swap(arr, i, gt--);
+                compared += 2;
+                swaps++;
+            } else {
+                i++;
+                compared += 2;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(compared);
+            SortMetrics.moves(2 * swaps);
+        }
+        return ((long) lt << 32) | (gt & 0xFFFFFFFFL);
+    }
+
+    // Rearranges arr so that arr[n] holds the value it would have after
+    // sorting, everything before it is not greater and everything after it is
+    // not smaller. Runs in linear time: quickselect with median-of-three or
+    // ninther pivots, switching to median-of-medians pivots if the depth
+    // budget runs out.
+    public static int nthElement(int[] arr, int n) {
+        if (n < 0 || n >= arr.length) {
+            throw new IllegalArgumentException("n out of range: " + n + " for length " + arr.length);
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        select(arr, 0, arr.length - 1, n, 2 * log2(arr.length));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "nthElement", start);
+        }
+        return arr[n];
+    }
+
+    private static void select(int[] arr, int low, int high, int n, int depthLimit) {
+        while (high - low + 1 > INSERTION_THRESHOLD) {
+            int pivotIndex;
+            if (depthLimit == 0) {
+                pivotIndex = medianOfMedians(arr, low, high);
+            } else {
+                depthLimit--;
+                pivotIndex = choosePivot(arr, low, high);
+            }
+
+            long bounds = threeWayPartition(arr, low, high, arr[pivotIndex]);
+            int lt = (int) (bounds >>> 32);
+            int gt = (int) bounds;
+            if (n < lt) {
+                high = lt - 1;
+            } else if (n > gt) {
+                low = gt + 1;
+            } else {
+                return;
+            }
+        }
+        insertionSort(arr, low, high);
+    }
+
+    // Index of a pivot guaranteed to fall between the 30th and 70th
+    // percentile: the median of the medians of groups of five, which are
+    // gathered at the front of the range
+    private static int medianOfMedians(int[] arr, int low, int high) {
+        int groups = 0;
+        for (int start = low; start <= high; start += 5) {
+            int end = Math.min(start + 4, high);
+            insertionSort(arr, start, end);
+            swap(arr, low + groups, (start + end) >>> 1);
+            groups++;
+        }
+        int mid = low + groups / 2;
+        select(arr, low, low + groups - 1, mid, 2 * log2(groups));
+        return mid;
+    }
+
+    // Returns the k largest values of arr in ascending order, leaving arr untouched
+    public static int[] topK(int[] arr, int k) {
+        if (k < 0 || k > arr.length) {
+            throw new IllegalArgumentException("k out of range: " + k + " for length " + arr.length);
+        }
+        if (k == 0) {
+            return new int[0];
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[] result;
+        // A bounded heap avoids copying the whole array when k is small
+        if (k <= arr.length / 64) {
+            TopK top = new TopK(k);
+            for (int value : arr) {
+                top.offer(value);
+            }
+            result = top.toSortedArray();
+        } else {
+            int[] copy = arr.clone();
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated((long) copy.length * Integer.BYTES);
+            }
+            int from = copy.length - k;
+            nthElement(copy, from);
+            result = Arrays.copyOfRange(copy, from, copy.length);
+            quickSort(result, Strategy.INTROSORT);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("QuickSort", "topK", start);
+        }
+        return result;
+    }
+
+    // Returns the k largest values of a stream in ascending order, holding at
+    // most k values at any time
+    public static int[] topK(PrimitiveIterator.OfInt values, int k) {
+        TopK top = new TopK(k);
+        while (values.hasNext()) {
+            top.offer(values.nextInt());
+        }
+        return top.toSortedArray();
+    }
+
+    // Estimates from an evenly spaced sample whether keys repeat enough for
+    // three-way partitioning to pay off. A sample of s keys from n distinct
+    // values holds about s - s*s / (2n) distinct ones, which is over 15/16 of
+    // s for every n the sample is drawn from. Fewer than 7/8 of s distinct
+    // means the input holds no more than a few times s distinct values; a
+    // few hundred of them give about 300 distinct in a sample of 1024.
+    private static boolean hasManyDuplicates(int[] arr) {
+        if (arr.length <= INSERTION_THRESHOLD) {
+            return false;
+        }
+        int count = Math.min(SAMPLE_SIZE, arr.length >>> 3);
+        int[] sample = new int[count];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) count * Integer.BYTES);
+        }
+        long step = arr.length / count;
+        for (int i = 0; i < count; i++) {
+            sample[i] = arr[(int) (i * step)];
+        }
+        introSort(sample, 0, count - 1, 2 * log2(count), 1);
+
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (sample[i] != sample[i - 1]) {
+                distinct++;
+            }
+        }
+        return distinct < count - (count >>> 3);
+    }
+
+    // Median-of-three for mid-sized ranges, Tukey's ninther for large ones
+    private static int choosePivot(int[] arr, int low, int high) {
+        int mid = (low + high) >>> 1;
+        int size = high - low + 1;
+        if (SortMetrics.ENABLED) {
+            // Up to three comparisons per median, four medians for a ninther
+            SortMetrics.comparisons(size <= NINTHER_THRESHOLD ? 3 : 12);
+        }
+        if (size <= NINTHER_THRESHOLD) {
+            return medianOfThree(arr, low, mid, high);
+        }
+        int step = size / 8;
+        int first = medianOfThree(arr, low, low + step, low + 2 * step);
+        int middle = medianOfThree(arr, mid - step, mid, mid + step);
+        int last = medianOfThree(arr, high - 2 * step, high - step, high);
+        return medianOfThree(arr, first, middle, last);
+    }
+
+    private static int medianOfThree(int[] arr, int a, int b, int c) {
+        if (arr[a] < arr[b]) {
+            if (arr[b] < arr[c]) {
+                return b;
+            }
+            return arr[a] < arr[c] ? c : a;
+        }
+        if (arr[a] < arr[c]) {
+            return a;
+        }
+        return arr[b] < arr[c] ? c : b;
+    }
+
+    // Heapsort over arr[low..high], the worst-case fallback for introsort
+    private static void heapSort(int[] arr, int low, int high) {
+        int size = high - low + 1;
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(arr, low, i, size);
+        }
+        for (int end = size - 1; end > 0; end--) {
+            swap(arr, low, low + end);
+            siftDown(arr, low, 0, end);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(2L * (size - 1));
+        }
+    }
+
+    private static void siftDown(int[] arr, int offset, int root, int size) {
+        int value = arr[offset + root];
+        int child;
+        int levels = 0;
+        while ((child = 2 * root + 1) < size) {
+            if (child + 1 < size && arr[offset + child] < arr[offset + child + 1]) {
+                child++;
+            }
+            if (value >= arr[offset + child]) {
+                break;
+            }
+            arr[offset + root] = arr[offset + child];
+            root = child;
+            levels++;
+        }
+        arr[offset + root] = value;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(2L * (levels + 1));
+            SortMetrics.moves(levels + 1);
+        }
+    }
+
+    private static void insertionSort(int[] arr, int low, int high) {
+        MergeSort.insertionSort(arr, low, high + 1);
+    }
+
+    private static void swap(int[] arr, int i, int j) {
+        int temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    static int log2(int n) {
+        return n <= 1 ? 0 : 31 - Integer.numberOfLeadingZeros(n);
+    }
+
+    public static void main(String[] args) throws IOException {
+        // With arguments, sort a file or stdin in batch mode; see SortCli
+        if (args.length > 0) {
+            SortCli.run(args, "introsort");
+            return;
+        }
         int[] arr = { 24, 9, 29, 14, 19, 27 };
         System.out.println("Before quick sort:");
         printArray(arr);
         quickSort(arr);
         System.out.println("After quick sort:");
         printArray(arr);
+
+        // Already-sorted input is the worst case for the classic pivot choice
+        int[] sorted = new int[100_000];
+        for (int i = 0; i < sorted.length; i++) {
+            sorted[i] = i;
+        }
+        quickSort(sorted, Strategy.INTROSORT);
+        System.out.println("Introsort on " + sorted.length + " sorted elements done");
+
+        // Few distinct keys are handled by three-way partitioning
+        int[] codes = new int[100_000];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = (i * 31) % 7;
+        }
+        quickSort(codes, Strategy.AUTO);
+        System.out.println("Auto sort on " + codes.length + " elements with 7 distinct keys done");
+
+        int[] random = new int[1_000_000];
+        Random rnd = new Random(42);
+        for (int i = 0; i < random.length; i++) {
+            random[i] = rnd.nextInt();
+        }
+        parallelQuickSort(random);
+        System.out.println("Parallel sort on " + random.length + " random elements done");
+
+        System.out.println("Top 5:");
+        printArray(topK(random, 5));
+        System.out.println("Median: " + nthElement(random.clone(), random.length / 2));
+
+        double[] scores = { 2.5, Double.NaN, -0.0, 0.0, Double.NEGATIVE_INFINITY, -1.5 };
+        quickSort(scores);
+        System.out.println("Scores: " + Arrays.toString(scores));
+
+        String[] names = { "pear", "Apple", "fig", "banana" };
+        quickSort(names, String.CASE_INSENSITIVE_ORDER);
+        System.out.println("Names: " + Arrays.toString(names));
     }
 
     public static void printArray(int[] arr) {
+        StringBuilder line = new StringBuilder(arr.length * 8);
         for (int num : arr) {
-            System.out.print(num + " ");
+            line.append(num).append(' ');
         }
-        System.out.println();
+        System.out.println(line);
     }
 }
@@ -0,0 +1,277 @@
+package SortingJava;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// LSD radix sort for int[] and long[] using 8-bit digits
+public class RadixSort {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int MASK = RADIX - 1;
+
+    // Arrays at or above this size build their histograms in parallel
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Arrays below this size are handed to insertion sort
+    private static final int INSERTION_THRESHOLD = 64;
+
+    public static void radixSort(int[] arr) {
+        int n = arr.length;
+        if (n < INSERTION_THRESHOLD) {
+            insertionSort(arr);
+            return;
+        }
+
+        int digits = Integer.SIZE / RADIX_BITS;
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[][] counts = n >= PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(new IntHistogramTask(arr, 0, n))
+                : intHistogram(arr, 0, n);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("RadixSort", "histogram", start);
+            start = System.nanoTime();
+        }
+
+        int[] src = arr;
+        int[] dst = new int[n];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) n * Integer.BYTES);
+        }
+        for (int digit = 0; digit < digits; digit++) {
+            int[] count = counts[digit];
+            // A digit shared by every element would only copy the array
+            if (isConstant(count, n)) {
+                continue;
+            }
+            int shift = digit * RADIX_BITS;
+            // The top digit carries the sign bit; flipping it orders negatives first
+            int flip = digit == digits - 1 ? RADIX >>> 1 : 0;
+            int[] offsets = toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int value = src[i];
+                dst[offsets[((value >>> shift) & MASK) ^ flip]++] = value;
+            }
+            int[] temp = src;
+            src = dst;
+            dst = temp;
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(n);
+            }
+        }
+        if (src != arr) {
+            System.arraycopy(src, 0, arr, 0, n);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(n);
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("RadixSort", "scatter", start);
+        }
+    }
+
+    public static void radixSort(long[] arr) {
+        int n = arr.length;
+        if (n < INSERTION_THRESHOLD) {
+            insertionSort(arr);
+            return;
+        }
+
+        int digits = Long.SIZE / RADIX_BITS;
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[][] counts = n >= PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(new LongHistogramTask(arr, 0, n))
+                : longHistogram(arr, 0, n);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("RadixSort", "histogram", start);
+            start = System.nanoTime();
+        }
+
+        long[] src = arr;
+        long[] dst = new long[n];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) n * Long.BYTES);
+        }
+        for (int digit = 0; digit < digits; digit++) {
+            int[] count = counts[digit];
+            if (isConstant(count, n)) {
+                continue;
+            }
+            int shift = digit * RADIX_BITS;
+            int flip = digit == digits - 1 ? RADIX >>> 1 : 0;
+            int[] offsets = toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                long value = src[i];
+                dst[offsets[((int) (value >>> shift) & MASK) ^ flip]++] = value;
+            }
+            long[] temp = src;
+            src = dst;
+            dst = temp;
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(n);
+            }
+        }
+        if (src != arr) {
+            System.arraycopy(src, 0, arr, 0, n);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(n);
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("RadixSort", "scatter", start);
+        }
+    }
+
+    // Counts every digit of arr[from, to) in a single pass; the top digit is
+    // counted with its sign bit flipped to match the scatter pass
+    static int[][] intHistogram(int[] arr, int from, int to) {
+        int[][] counts = new int[Integer.SIZE / RADIX_BITS][RADIX];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) counts.length * RADIX * Integer.BYTES);
+        }
+        for (int i = from; i < to; i++) {
+            int value = arr[i] ^ Integer.MIN_VALUE;
+            counts[0][value & MASK]++;
+            counts[1][(value >>> 8) & MASK]++;
+            counts[2][(value >>> 16) & MASK]++;
+            counts[3][value >>> 24]++;
+        }
+        return counts;
+    }
+
+    static int[][] longHistogram(long[] arr, int from, int to) {
+        int digits = Long.SIZE / RADIX_BITS;
+        int[][] counts = new int[digits][RADIX];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) digits * RADIX * Integer.BYTES);
+        }
+        for (int i = from; i < to; i++) {
+            long value = arr[i] ^ Long.MIN_VALUE;
+            for (int digit = 0; digit < digits; digit++) {
+                counts[digit][(int) (value >>> (digit * RADIX_BITS)) & MASK]++;
+            }
+        }
+        return counts;
+    }
+
+    // Splits the histogram pass across the fork-join pool and sums the partial counts
+    private static final class IntHistogramTask extends RecursiveTask<int[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int from;
+        private final int to;
+
+        IntHistogramTask(int[] arr, int from, int to) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                return intHistogram(arr, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            IntHistogramTask left = new IntHistogramTask(arr, from, mid);
+            left.fork();
+            int[][] right = new IntHistogramTask(arr, mid, to).compute();
+            return add(left.join(), right);
+        }
+    }
+
+    private static final class LongHistogramTask extends RecursiveTask<int[][]> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] arr;
+        private final int from;
+        private final int to;
+
+        LongHistogramTask(long[] arr, int from, int to) {
+            this.arr = arr;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (to - from < PARALLEL_THRESHOLD) {
+                return longHistogram(arr, from, to);
+            }
+            int mid = (from + to) >>> 1;
+            LongHistogramTask left = new LongHistogramTask(arr, from, mid);
+            left.fork();
+            int[][] right = new LongHistogramTask(arr, mid, to).compute();
+            return add(left.join(), right);
+        }
+    }
+
+    private static int[][] add(int[][] into, int[][] other) {
+        for (int digit = 0; digit < into.length; digit++) {
+            for (int b = 0; b < RADIX; b++) {
+                into[digit][b] += other[digit][b];
+            }
+        }
+        return into;
+    }
+
+    private static boolean isConstant(int[] count, int n) {
+        for (int c : count) {
+            if (c == n) {
+                return true;
+            }
+            if (c != 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Turns bucket counts into starting positions in the output array
+    private static int[] toOffsets(int[] count) {
+        int[] offsets = new int[RADIX];
+        int sum = 0;
+        for (int b = 0; b < RADIX; b++) {
+            offsets[b] = sum;
+            sum += count[b];
+        }
+        return offsets;
+    }
+
+    private static void insertionSort(int[] arr) {
+        MergeSort.insertionSort(arr, 0, arr.length);
+    }
+
+    private static void insertionSort(long[] arr) {
+        long shifted = 0;
+        for (int i = 1; i < arr.length; i++) {
+            long key = arr[i];
+            int j = i - 1;
+            while (j >= 0 && arr[j] > key) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = key;
+            shifted += i - 1 - j;
+        }
+        if (SortMetrics.ENABLED && arr.length > 0) {
+            SortMetrics.comparisons(shifted + (arr.length - 1));
+            SortMetrics.moves(shifted + (arr.length - 1));
+        }
+    }
+
+    public static void main(String[] args) {
+        int[] arr = { 170, -45, 75, -90, 802, 24, 2, 66 };
+        radixSort(arr);
+        QuickSort.printArray(arr);
+
+        Random random = new Random(42);
+        long[] ids = new long[1_000_000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextLong();
+        }
+        radixSort(ids);
+        System.out.println("Radix sort on " + ids.length + " longs done");
+    }
+}
@@ -0,0 +1,97 @@
+package SortingJava;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Simple wall-clock benchmark for the sorts in this package
+// Usage: java SortingJava.SortBenchmark [size] [rounds]
+public class SortBenchmark {
+    interface Sorter {
+        void sort(int[] arr);
+    }
+
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        int[] input = randomArray(size, 42);
+        System.out.println("size=" + size + " rounds=" + rounds
+                + " cores=" + Runtime.getRuntime().availableProcessors());
+
+        double baseline = run("Arrays.sort", input, rounds, Arrays::sort);
+        run("QuickSort introsort", input, rounds, arr -> QuickSort.quickSort(arr, QuickSort.Strategy.INTROSORT));
+        double reference = run("Arrays.parallelSort", input, rounds, Arrays::parallelSort);
+        double parallel = run("QuickSort.parallelQuickSort", input, rounds, QuickSort::parallelQuickSort);
+        run("RadixSort", input, rounds, RadixSort::radixSort);
+
+        System.out.printf("parallelQuickSort: %.2fx vs Arrays.sort, %.2fx vs Arrays.parallelSort%n",
+                baseline / parallel, reference / parallel);
+
+        // Few distinct keys: AUTO and parallelQuickSort switch to three-way
+        // partitioning, which the auto row should match
+        for (int distinct : new int[] { 16, 300 }) {
+            int[] duplicates = duplicateArray(size, distinct, 42);
+            System.out.println(distinct + " distinct values:");
+            double duplicateBaseline = run("Arrays.sort", duplicates, rounds, Arrays::sort);
+            run("QuickSort introsort", duplicates, rounds,
+                    arr -> QuickSort.quickSort(arr, QuickSort.Strategy.INTROSORT));
+            run("QuickSort three-way", duplicates, rounds,
+                    arr -> QuickSort.quickSort(arr, QuickSort.Strategy.THREE_WAY));
+            run("QuickSort auto", duplicates, rounds, arr -> QuickSort.quickSort(arr, QuickSort.Strategy.AUTO));
+            double duplicateParallel = run("QuickSort.parallelQuickSort", duplicates, rounds,
+                    QuickSort::parallelQuickSort);
+            System.out.printf("parallelQuickSort: %.2fx vs Arrays.sort%n", duplicateBaseline / duplicateParallel);
+        }
+    }
+
+    // Returns the best time in milliseconds over the given rounds after one warm-up round
+    static double run(String name, int[] input, int rounds, Sorter sorter) {
+        double best = Double.MAX_VALUE;
+        for (int round = 0; round <= rounds; round++) {
+            int[] arr = input.clone();
+            long start = System.nanoTime();
+            sorter.sort(arr);
+            long elapsed = System.nanoTime() - start;
+            if (!isSorted(arr)) {
+                throw new IllegalStateException(name + " produced unsorted output");
+            }
+            if (round > 0) {
+                best = Math.min(best, elapsed / 1e6);
+            }
+        }
+        System.out.printf("%-30s %10.2f ms%n", name, best);
+        return best;
+    }
+
+    static int[] randomArray(int size, long seed) {
+        Random random = new Random(seed);
+        int[] arr = new int[size];
+        for (int i = 0; i < size; i++) {
+            arr[i] = random.nextInt();
+        }
+        return arr;
+    }
+
+    // Values drawn uniformly from `distinct` random keys
+    static int[] duplicateArray(int size, int distinct, long seed) {
+        Random random = new Random(seed);
+        int[] keys = new int[distinct];
+        for (int i = 0; i < distinct; i++) {
+            keys[i] = random.nextInt();
+        }
+        int[] arr = new int[size];
+        for (int i = 0; i < size; i++) {
+            arr[i] = keys[random.nextInt(distinct)];
+        }
+        return arr;
+    }
+
+    static boolean isSorted(int[] arr) {
+        for (int i = 1; i < arr.length; i++) {
+            if (arr[i - 1] > arr[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
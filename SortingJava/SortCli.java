@@ -0,0 +1,402 @@
+package SortingJava;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Batch mode for the sorting programs: reads ints from a file or stdin,
+// sorts them and writes them to a file or stdout
+//
+// Usage: java SortingJava.SortCli [options] [input|-]
+//   --algorithm NAME       one of ALGORITHMS below (default adaptive)
+//   --format text|binary   input format (default text)
+//   --output-format F      output format (default same as input)
+//   --output FILE          output file (default stdout)
+//
+// Text is signed decimal ints separated by any whitespace; output has one
+// per line. Binary is raw little-endian 32-bit ints, as in ExternalSort.
+// All I/O goes through FileChannel and one large buffer per direction, and
+// text is parsed and printed by hand straight from and into that buffer.
+// Element count, phase timings and throughput go to stderr on exit.
+public class SortCli {
+    public static final String[] ALGORITHMS = {
+            "adaptive", "introsort", "three-way", "auto", "parallel-quick", "merge", "natural", "radix", "distinct",
+            "jdk", "jdk-parallel" };
+
+    // Size of the read and the write buffer
+    static final int BUFFER_BYTES = 1 << 20;
+
+    public static void main(String[] args) throws IOException {
+        run(args, "adaptive");
+    }
+
+    // Parses the command line and runs one batch; defaultAlgorithm is used
+    // when --algorithm is not given
+    public static void run(String[] args, String defaultAlgorithm) throws IOException {
+        String algorithm = defaultAlgorithm;
+        String format = "text";
+        String outputFormat = null;
+        String input = "-";
+        String output = "-";
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            if (arg.equals("--algorithm") || arg.equals("--format") || arg.equals("--output-format")
+                    || arg.equals("--output")) {
+                if (i + 1 == args.length) {
+                    throw new IllegalArgumentException("Missing value for " + arg);
+                }
+                String value = args[++i];
+                switch (arg) {
+                    case "--algorithm":
+                        algorithm = value;
+                        break;
+                    case "--format":
+                        format = value;
+                        break;
+                    case "--output-format":
+                        outputFormat = value;
+                        break;
+                    default:
+                        output = value;
+                }
+            } else if (arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unknown option: " + arg);
+            } else {
+                input = arg;
+            }
+        }
+        if (outputFormat == null) {
+            outputFormat = format;
+        }
+        if (!Arrays.asList(ALGORITHMS).contains(algorithm)) {
+            throw new IllegalArgumentException("Unknown algorithm: " + algorithm
+                    + ", expected one of " + Arrays.toString(ALGORITHMS));
+        }
+        boolean binaryIn = isBinary(format);
+        boolean binaryOut = isBinary(outputFormat);
+
+        long start = System.nanoTime();
+        int[] values;
+        long bytesRead;
+        // Closing a channel over stdin or stdout would close the descriptor
+        // itself, so only channels opened on a path are closed here
+        boolean stdin = input.equals("-");
+        FileChannel in = stdin
+                ? new FileInputStream(FileDescriptor.in).getChannel()
+                : FileChannel.open(Path.of(input), StandardOpenOption.READ);
+        try {
+            Reader reader = binaryIn ? new BinaryReader(in) : new TextReader(in);
+            values = reader.readAll();
+            bytesRead = reader.bytesRead;
+        } finally {
+            if (!stdin) {
+                in.close();
+            }
+        }
+        long read = System.nanoTime();
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("SortCli", "read", start);
+        }
+
+        int count = sort(algorithm, values);
+        long sorted = System.nanoTime();
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("SortCli", "sort", read);
+        }
+
+        long bytesWritten;
+        boolean stdout = output.equals("-");
+        FileChannel out = stdout
+                ? new FileOutputStream(FileDescriptor.out).getChannel()
+                : FileChannel.open(Path.of(output), StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        try {
+            bytesWritten = binaryOut ? writeBinary(out, values, count) : writeText(out, values, count);
+        } finally {
+            if (!stdout) {
+                out.close();
+            }
+        }
+        long written = System.nanoTime();
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("SortCli", "write", sorted);
+        }
+
+        System.err.printf("%s: %d ints in, %d out%n", algorithm, values.length, count);
+        System.err.printf("read  %9.1f ms %9.1f MB/s%n", (read - start) / 1e6, rate(bytesRead, read - start));
+        System.err.printf("sort  %9.1f ms %9.1f M ints/s%n", (sorted - read) / 1e6,
+                values.length * 1e3 / Math.max(1, sorted - read));
+        System.err.printf("write %9.1f ms %9.1f MB/s%n", (written - sorted) / 1e6,
+                rate(bytesWritten, written - sorted));
+        System.err.printf("total %9.1f ms %9.1f MB/s in, %.1f MB/s out%n", (written - start) / 1e6,
+                rate(bytesRead, written - start), rate(bytesWritten, written - start));
+    }
+
+    private static boolean isBinary(String format) {
+        if (format.equals("binary")) {
+            return true;
+        }
+        if (format.equals("text")) {
+            return false;
+        }
+        throw new IllegalArgumentException("Unknown format: " + format + ", expected text or binary");
+    }
+
+    private static double rate(long bytes, long nanos) {
+        return bytes * 1e3 / Math.max(1, nanos);
+    }
+
+    // Sorts arr with the named algorithm and returns how many leading values
+    // make up the result; only distinct drops any
+    static int sort(String algorithm, int[] arr) {
+        switch (algorithm) {
+            case "adaptive":
+                AdaptiveSort.sort(arr);
+                break;
+            case "introsort":
+                QuickSort.quickSort(arr, QuickSort.Strategy.INTROSORT);
+                break;
+            case "three-way":
+                QuickSort.quickSort(arr, QuickSort.Strategy.THREE_WAY);
+                break;
+            case "auto":
+                QuickSort.quickSort(arr, QuickSort.Strategy.AUTO);
+                break;
+            case "parallel-quick":
+                QuickSort.parallelQuickSort(arr);
+                break;
+            case "merge":
+                MergeSort.parallelMergeSort(arr);
+                break;
+            case "natural":
+                MergeSort.naturalMergeSort(arr);
+                break;
+            case "radix":
+                RadixSort.radixSort(arr);
+                break;
+            case "distinct":
+                return MergeSort.sortDistinct(arr);
+            case "jdk":
+                Arrays.sort(arr);
+                break;
+            case "jdk-parallel":
+                Arrays.parallelSort(arr);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown algorithm: " + algorithm);
+        }
+        return arr.length;
+    }
+
+    // Reads every int from a channel into an array that grows by doubling
+    private abstract static class Reader {
+        final FileChannel channel;
+        final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        int[] values;
+        int count;
+        long bytesRead;
+
+        Reader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            // Size the array from the file when there is one; stdin reports 0
+            long size = channel.size();
+            this.values = new int[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(1024, estimate(size)))];
+        }
+
+        abstract long estimate(long size);
+
+        // Parses buffer[0, limit) and returns the number of bytes consumed
+        abstract int parse(byte[] bytes, int limit) throws IOException;
+
+        abstract void finish() throws IOException;
+
+        int[] readAll() throws IOException {
+            byte[] bytes = buffer.array();
+            int n;
+            while ((n = channel.read(buffer)) >= 0) {
+                bytesRead += n;
+                int consumed = parse(bytes, buffer.position());
+                // Keep a partial element for the next read
+                System.arraycopy(bytes, consumed, bytes, 0, buffer.position() - consumed);
+                buffer.position(buffer.position() - consumed);
+            }
+            finish();
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        final void add(int value) {
+            if (count == values.length) {
+                if (values.length >= Integer.MAX_VALUE - 8) {
+                    throw new IllegalStateException("Too many values for an array");
+                }
+                values = Arrays.copyOf(values, (int) Math.min(Integer.MAX_VALUE - 8, 2L * values.length));
+            }
+            values[count++] = value;
+        }
+    }
+
+    // Signed decimal ints separated by whitespace; a number cut off at the
+    // end of the buffer is carried over in value and digits
+    private static final class TextReader extends Reader {
+        private long position;
+        private long value;
+        private int digits;
+        private boolean negative;
+        private boolean signed;
+
+        TextReader(FileChannel channel) throws IOException {
+            super(channel);
+        }
+
+        @Override
+        long estimate(long size) {
+            // Random ints average about 11 bytes with their separator
+            return size / 8;
+        }
+
+        @Override
+        int parse(byte[] bytes, int limit) throws IOException {
+            for (int i = 0; i < limit; i++) {
+                int b = bytes[i];
+                if (b >= '0' && b <= '9') {
+                    value = value * 10 + (b - '0');
+                    digits++;
+                    // Past -Integer.MIN_VALUE; checking here keeps value from overflowing
+                    if (value > 1L << 31) {
+                        throw new IOException("Number out of int range at byte " + (position + i));
+                    }
+                } else if (b == ' ' || b == '\n' || b == '\r' || b == '\t') {
+                    end(position + i);
+                } else if (b == '-' && digits == 0 && !signed) {
+                    negative = true;
+                    signed = true;
+                } else if (b == '+' && digits == 0 && !signed) {
+                    signed = true;
+                } else {
+                    throw new IOException("Unexpected character '" + (char) (b & 0xff) + "' at byte " + (position + i));
+                }
+            }
+            position += limit;
+            return limit;
+        }
+
+        @Override
+        void finish() throws IOException {
+            end(position);
+        }
+
+        private void end(long at) throws IOException {
+            if (digits == 0) {
+                if (signed) {
+                    throw new IOException("Sign without digits at byte " + at);
+                }
+                return;
+            }
+            long result = negative ? -value : value;
+            if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE) {
+                throw new IOException("Number out of int range before byte " + at + ": " + result);
+            }
+            add((int) result);
+            value = 0;
+            digits = 0;
+            negative = false;
+            signed = false;
+        }
+    }
+
+    // Raw little-endian ints
+    private static final class BinaryReader extends Reader {
+        BinaryReader(FileChannel channel) throws IOException {
+            super(channel);
+        }
+
+        @Override
+        long estimate(long size) {
+            return size / Integer.BYTES;
+        }
+
+        @Override
+        int parse(byte[] bytes, int limit) {
+            int whole = limit - limit % Integer.BYTES;
+            ByteBuffer view = ByteBuffer.wrap(bytes, 0, whole).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < whole; i += Integer.BYTES) {
+                add(view.getInt(i));
+            }
+            return whole;
+        }
+
+        @Override
+        void finish() throws IOException {
+            if (buffer.position() != 0) {
+                throw new IOException("Input size is not a multiple of " + Integer.BYTES + " bytes: " + bytesRead);
+            }
+        }
+    }
+
+    // One value per line; digits are produced backwards into the buffer
+    private static long writeText(FileChannel out, int[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        byte[] bytes = buffer.array();
+        // Longest line: "-2147483648\n"
+        int room = bytes.length - 12;
+        int k = 0;
+        long written = 0;
+        for (int i = 0; i < count; i++) {
+            if (k > room) {
+                written += flush(out, buffer, k);
+                k = 0;
+            }
+            long value = values[i];
+            if (value < 0) {
+                bytes[k++] = '-';
+                value = -value;
+            }
+            int end = k + digits(value);
+            for (int p = end - 1; p >= k; p--) {
+                bytes[p] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            k = end;
+            bytes[k++] = '\n';
+        }
+        return written + flush(out, buffer, k);
+    }
+
+    private static int digits(long value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static long writeBinary(FileChannel out, int[] values, int count) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        int perBuffer = BUFFER_BYTES / Integer.BYTES;
+        long written = 0;
+        for (int i = 0; i < count; i += perBuffer) {
+            int n = Math.min(perBuffer, count - i);
+            buffer.asIntBuffer().put(values, i, n);
+            written += flush(out, buffer, n * Integer.BYTES);
+        }
+        return written;
+    }
+
+    private static long flush(FileChannel out, ByteBuffer buffer, int length) throws IOException {
+        buffer.position(0).limit(length);
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += out.write(buffer);
+        }
+        buffer.clear();
+        return written;
+    }
+}
@@ -0,0 +1,164 @@
+package SortingJava;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.Timespan;
+
+// Optional instrumentation shared by the sorts in this package and in java/SortingAlgo
+//
+// The java/SortingAlgo programs are in the default package and import this
+// class, so they compile with the project root on the classpath.
+//
+// Enable with -Dsorting.metrics=true. Every hook sits behind a check of the
+// static final ENABLED flag, so when it is false the JIT drops the hooks and
+// the local counters that feed them. Counters are global and safe to update
+// from the parallel sorts; read them with snapshot() and clear them with
+// reset(). While enabled, every recorded phase is also committed as a
+// SortingJava.SortPhase JFR event, and the totals are emitted once per second
+// as a SortingJava.SortMetrics event.
+public final class SortMetrics {
+    public static final boolean ENABLED = Boolean.getBoolean("sorting.metrics");
+
+    private static final LongAdder COMPARISONS = new LongAdder();
+    private static final LongAdder MOVES = new LongAdder();
+    private static final LongAdder ALLOCATED_BYTES = new LongAdder();
+    private static final AtomicInteger MAX_DEPTH = new AtomicInteger();
+    private static final Map<String, LongAdder> PHASE_NANOS = new ConcurrentHashMap<>();
+
+    static {
+        if (ENABLED) {
+            FlightRecorder.addPeriodicEvent(MetricsEvent.class, () -> {
+                MetricsEvent event = new MetricsEvent();
+                event.comparisons = COMPARISONS.sum();
+                event.moves = MOVES.sum();
+                event.allocatedBytes = ALLOCATED_BYTES.sum();
+                event.maxDepth = MAX_DEPTH.get();
+                event.commit();
+            });
+        }
+    }
+
+    private SortMetrics() {
+    }
+
+    public static void comparisons(long count) {
+        COMPARISONS.add(count);
+    }
+
+    // An element written into an array, including writes into buffers
+    public static void moves(long count) {
+        MOVES.add(count);
+    }
+
+    public static void allocated(long bytes) {
+        ALLOCATED_BYTES.add(bytes);
+    }
+
+    // Records a recursion depth; the snapshot keeps the deepest one seen
+    public static void depth(int depth) {
+        MAX_DEPTH.accumulateAndGet(depth, Math::max);
+    }
+
+    // Adds the time since startNanos to algorithm.phase
+    public static void phase(String algorithm, String phase, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        PHASE_NANOS.computeIfAbsent(algorithm + "." + phase, key -> new LongAdder()).add(elapsed);
+
+        PhaseEvent event = new PhaseEvent();
+        if (event.isEnabled()) {
+            event.algorithm = algorithm;
+            event.phase = phase;
+            event.elapsed = elapsed;
+            event.commit();
+        }
+    }
+
+    public static Snapshot snapshot() {
+        Map<String, Long> phases = new TreeMap<>();
+        PHASE_NANOS.forEach((name, nanos) -> phases.put(name, nanos.sum()));
+        return new Snapshot(COMPARISONS.sum(), MOVES.sum(), ALLOCATED_BYTES.sum(), MAX_DEPTH.get(), phases);
+    }
+
+    public static void reset() {
+        COMPARISONS.reset();
+        MOVES.reset();
+        ALLOCATED_BYTES.reset();
+        MAX_DEPTH.set(0);
+        PHASE_NANOS.clear();
+    }
+
+    // Point-in-time copy of the counters; phase times are in nanoseconds
+    public static final class Snapshot {
+        public final long comparisons;
+        public final long moves;
+        public final long allocatedBytes;
+        public final int maxDepth;
+        public final Map<String, Long> phaseNanos;
+
+        Snapshot(long comparisons, long moves, long allocatedBytes, int maxDepth, Map<String, Long> phaseNanos) {
+            this.comparisons = comparisons;
+            this.moves = moves;
+            this.allocatedBytes = allocatedBytes;
+            this.maxDepth = maxDepth;
+            this.phaseNanos = phaseNanos;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("comparisons=").append(comparisons)
+                    .append(" moves=").append(moves)
+                    .append(" allocatedBytes=").append(allocatedBytes)
+                    .append(" maxDepth=").append(maxDepth);
+            phaseNanos.forEach((name, nanos) -> sb.append(' ').append(name).append('=')
+                    .append(nanos / 1000).append("us"));
+            return sb.toString();
+        }
+    }
+
+    @Name("SortingJava.SortPhase")
+    @Label("Sort Phase")
+    @Category("Sorting")
+    @Description("Time spent in one phase of a sort")
+    static final class PhaseEvent extends Event {
+        @Label("Algorithm")
+        String algorithm;
+
+        @Label("Phase")
+        String phase;
+
+        @Label("Elapsed")
+        @Timespan(Timespan.NANOSECONDS)
+        long elapsed;
+    }
+
+    @Name("SortingJava.SortMetrics")
+    @Label("Sort Metrics")
+    @Category("Sorting")
+    @Description("Cumulative sort counters")
+    @Period("1 s")
+    static final class MetricsEvent extends Event {
+        @Label("Comparisons")
+        long comparisons;
+
+        @Label("Moves")
+        long moves;
+
+        @Label("Allocated Bytes")
+        long allocatedBytes;
+
+        @Label("Max Recursion Depth")
+        int maxDepth;
+    }
+}
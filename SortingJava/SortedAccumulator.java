@@ -0,0 +1,185 @@
+package SortingJava;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+// Online sorted multiset of ints, built like a log-structured merge tree
+//
+// New values go into a small head kept sorted by insertion sort. A full head
+// is frozen into a sorted run and pushed onto a stack of runs, and runs are
+// merged while the one below is not more than twice as long as the one on
+// top. Run lengths therefore at least double going down the stack, there are
+// O(log n) of them, and every value is merged O(log n) times: insertion
+// costs O(log n) amortized instead of the O(n) of shifting a sorted array.
+//
+// Runs are never modified once built, so iterator() and snapshot() see the
+// contents at the time of the call and are not affected by later adds.
+public class SortedAccumulator {
+    // Values kept in the insertion-sorted head before it is frozen into a run
+    public static final int DEFAULT_HEAD_CAPACITY = 32;
+
+    private final int[] head;
+    private int headSize;
+    // Sorted runs, longest first; runs[0, runCount) are in use
+    private int[][] runs = new int[8][];
+    private int runCount;
+    private long size;
+
+    public SortedAccumulator() {
+        this(DEFAULT_HEAD_CAPACITY);
+    }
+
+    public SortedAccumulator(int headCapacity) {
+        if (headCapacity < 1) {
+            throw new IllegalArgumentException("headCapacity must be positive: " + headCapacity);
+        }
+        this.head = new int[headCapacity];
+    }
+
+    public void add(int value) {
+        // Insertion sort step: shift larger values right and drop value in
+        int j = headSize - 1;
+        while (j >= 0 && head[j] > value) {
+            head[j + 1] = head[j];
+            j--;
+        }
+        head[j + 1] = value;
+        headSize++;
+        size++;
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(headSize - j - 1);
+            SortMetrics.moves(headSize - j - 1);
+        }
+        if (headSize == head.length) {
+            push(Arrays.copyOf(head, headSize));
+            headSize = 0;
+        }
+    }
+
+    // Adds values[from, to); a batch at least as large as the head is
+    // sorted on its own and pushed as one run
+    public void addAll(int[] values, int from, int to) {
+        if (from < 0 || to > values.length || from > to) {
+            throw new IllegalArgumentException("Invalid range [" + from + ", " + to + ") for length " + values.length);
+        }
+        if (to - from < head.length) {
+            for (int i = from; i < to; i++) {
+                add(values[i]);
+            }
+            return;
+        }
+        int[] run = Arrays.copyOfRange(values, from, to);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) run.length * Integer.BYTES);
+        }
+        AdaptiveSort.sort(run);
+        size += run.length;
+        push(run);
+    }
+
+    public void addAll(int[] values) {
+        addAll(values, 0, values.length);
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Number of values strictly less than x
+    public long rank(int x) {
+        long rank = lowerBound(head, headSize, x);
+        for (int r = 0; r < runCount; r++) {
+            rank += lowerBound(runs[r], runs[r].length, x);
+        }
+        return rank;
+    }
+
+    // All values in ascending order, as of this call
+    public PrimitiveIterator.OfInt iterator() {
+        int[][] sources = sources();
+        PrimitiveIterator.OfInt[] iterators = new PrimitiveIterator.OfInt[sources.length];
+        for (int i = 0; i < sources.length; i++) {
+            iterators[i] = new KWayMerge.ArraySource(sources[i]);
+        }
+        return new KWayMerge.LoserTree(iterators, false);
+    }
+
+    // A new array holding all values in ascending order
+    public int[] snapshot() {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Too many values for an array: " + size);
+        }
+        return KWayMerge.merge(sources());
+    }
+
+    // The runs plus a copy of the head, which keeps changing
+    private int[][] sources() {
+        int[][] sources = Arrays.copyOf(runs, runCount + 1);
+        sources[runCount] = Arrays.copyOf(head, headSize);
+        return sources;
+    }
+
+    // Pushes a sorted run and merges until every run is more than twice as
+    // long as the one above it
+    private void push(int[] run) {
+        while (runCount > 0 && runs[runCount - 1].length <= 2 * (long) run.length) {
+            int[] below = runs[--runCount];
+            runs[runCount] = null;
+            int[] merged = new int[below.length + run.length];
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated((long) merged.length * Integer.BYTES);
+            }
+            MergeSort.parallelMerge(merged, below, run);
+            run = merged;
+        }
+        if (runCount == runs.length) {
+            runs = Arrays.copyOf(runs, runCount * 2);
+        }
+        runs[runCount++] = run;
+    }
+
+    // First index in arr[0, length) whose value is not less than x
+    private static int lowerBound(int[] arr, int length, int x) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (arr[mid] < x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public static void main(String[] args) {
+        int n = 1_000_000;
+        Random random = new Random(42);
+        int[] values = new int[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = random.nextInt();
+        }
+
+        long start = System.nanoTime();
+        SortedAccumulator accumulator = new SortedAccumulator();
+        for (int value : values) {
+            accumulator.add(value);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int[] expected = values.clone();
+        Arrays.sort(expected);
+        System.out.printf("Added %d values one at a time in %.1f ms, sorted: %s%n", n, elapsed / 1e6,
+                Arrays.equals(expected, accumulator.snapshot()));
+        System.out.println("Rank of the median: " + accumulator.rank(expected[n / 2]));
+
+        PrimitiveIterator.OfInt smallest = accumulator.iterator();
+        System.out.print("Smallest:");
+        for (int i = 0; i < 5; i++) {
+            System.out.print(" " + smallest.nextInt());
+        }
+        System.out.println();
+    }
+}
@@ -0,0 +1,79 @@
+package SortingJava;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+// Base-case sort for small ranges used by MergeSort and QuickSort
+//
+// Ranges of MIN_VECTOR_BLOCK..MAX_BLOCK elements are sorted with a bitonic
+// sorting network built on the incubating Vector API (SIMD min/max), when
+// that kernel is available. Otherwise, and for other sizes, insertion sort
+// is used. The kernel, SortingJava.vector.VectorSortingNetwork, is compiled
+// separately so the package builds without the incubator module:
+//
+//   javac -d out SortingJava/*.java
+//   javac --add-modules jdk.incubator.vector -cp out -d out SortingJava/vector/*.java
+//
+// It is looked up reflectively and used only when it was compiled, the
+// program runs with --add-modules jdk.incubator.vector and the hardware has
+// native 256-bit vectors; pass -Dsorting.scalar=true to force the scalar path.
+final class SortingNetwork {
+    // Largest range handled by the vector kernel
+    static final int MAX_BLOCK = 32;
+
+    // Smallest range handed to the vector kernel; below it insertion sort wins
+    // (see SortingNetworkBenchmark for the crossover)
+    static final int MIN_VECTOR_BLOCK = Integer.getInteger("sorting.minVectorBlock", 8);
+
+    // VectorSortingNetwork.sort(int[], int, int), or null when it cannot be used
+    private static final MethodHandle VECTOR_SORT = findVectorKernel();
+
+    static final boolean VECTORIZED = VECTOR_SORT != null;
+
+    private SortingNetwork() {
+    }
+
+    // Sorts arr[from, to)
+    static void sort(int[] arr, int from, int to) {
+        int length = to - from;
+        if (VECTORIZED && length >= MIN_VECTOR_BLOCK && length <= MAX_BLOCK) {
+            vectorSort(arr, from, to);
+            if (SortMetrics.ENABLED) {
+                // Comparators in the padded 8, 16 or 32 element bitonic network
+                SortMetrics.comparisons(length <= 8 ? 24 : length <= 16 ? 80 : 240);
+                SortMetrics.moves(length);
+            }
+        } else {
+            MergeSort.insertionSort(arr, from, to);
+        }
+    }
+
+    // Sorts arr[from, to) with the vector kernel; only valid when VECTORIZED
+    // and to - from <= MAX_BLOCK
+    static void vectorSort(int[] arr, int from, int to) {
+        try {
+            VECTOR_SORT.invokeExact(arr, from, to);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Vector sorting network failed", e);
+        }
+    }
+
+    private static MethodHandle findVectorKernel() {
+        if (Boolean.getBoolean("sorting.scalar") || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            Class<?> kernel = Class.forName("SortingJava.vector.VectorSortingNetwork");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            MethodHandle isSupported = lookup.findStatic(kernel, "isSupported", MethodType.methodType(boolean.class));
+            if (!(boolean) isSupported.invokeExact()) {
+                return null;
+            }
+            return lookup.findStatic(kernel, "sort", MethodType.methodType(void.class, int[].class, int.class, int.class));
+        } catch (Throwable e) {
+            // Not compiled, or not linkable without the module: stay scalar
+            return null;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package SortingJava;
+
+// Compares insertion sort with the vector sorting network on small blocks
+// to find the block size where the network starts to win
+// Usage: java --add-modules jdk.incubator.vector SortingJava.SortingNetworkBenchmark [rounds]
+public class SortingNetworkBenchmark {
+    private static final int TOTAL = 1 << 20;
+
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        if (!SortingNetwork.VECTORIZED) {
+            System.out.println("The vector kernel is not available; see SortingNetwork for how to build and run it");
+            return;
+        }
+
+        int[] input = SortBenchmark.randomArray(TOTAL, 42);
+        int crossover = -1;
+        System.out.printf("%6s %16s %16s%n", "block", "insertion ns/el", "network ns/el");
+        for (int block = 4; block <= SortingNetwork.MAX_BLOCK; block += 2) {
+            int size = block;
+            double insertion = time(input, size, rounds, (arr, from, to) -> MergeSort.insertionSort(arr, from, to));
+            double network = time(input, size, rounds, SortingNetwork::vectorSort);
+            System.out.printf("%6d %16.2f %16.2f%n", block, insertion, network);
+            if (crossover < 0 && network < insertion) {
+                crossover = block;
+            }
+        }
+        System.out.println(crossover < 0
+                ? "network never beat insertion sort"
+                : "network wins from block size " + crossover + " (sorting.minVectorBlock)");
+    }
+
+    interface RangeSorter {
+        void sort(int[] arr, int from, int to);
+    }
+
+    // Best time per element in nanoseconds for sorting every block of the input
+    private static double time(int[] input, int block, int rounds, RangeSorter sorter) {
+        double best = Double.MAX_VALUE;
+        int end = input.length - input.length % block;
+        for (int round = 0; round <= rounds; round++) {
+            int[] arr = input.clone();
+            long start = System.nanoTime();
+            for (int from = 0; from < end; from += block) {
+                sorter.sort(arr, from, from + block);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round > 0) {
+                best = Math.min(best, (double) elapsed / end);
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,458 @@
+package SortingJava;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+// Multikey sorts for strings: three-way radix quicksort (Bentley-Sedgewick)
+// with an MSD radix pass over large ranges
+//
+// Comparison sorts compare whole keys, so keys sharing a long prefix have
+// that prefix re-read on every comparison. These sorts work one character
+// position d at a time: a range is split by the character at d, and only
+// the part whose characters are equal moves on to d + 1. A shared prefix is
+// read once per split instead of once per comparison.
+//
+// Ranges of at least MSD_THRESHOLD keys are split 257 ways (end of key plus
+// one bucket per byte) by a counting pass; smaller ones are split three ways
+// around a median-of-three pivot character, and the smallest are finished
+// with insertion sort comparing from d. In every case the largest part is
+// handled by the loop and the others by recursion, which keeps the stack
+// O(log n) deep no matter how long the keys are.
+public class StringSort {
+    // Ranges at or below this size are finished with insertion sort
+    private static final int INSERTION_THRESHOLD = 16;
+
+    // Ranges at or above this size are split by a 256-way counting pass
+    private static final int MSD_THRESHOLD = 1 << 10;
+
+    private static final int RADIX = 256;
+
+    // Sorts in String.compareTo order. The counting pass is only used where
+    // every character at that position is below RADIX, which covers ASCII and
+    // Latin-1 keys; other ranges go straight to three-way partitioning.
+    public static void sort(String[] arr) {
+        int n = arr.length;
+        if (n <= 1) {
+            return;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        String[] aux = n >= MSD_THRESHOLD ? new String[n] : null;
+        int[] chars = n >= MSD_THRESHOLD ? new int[n] : null;
+        if (SortMetrics.ENABLED && aux != null) {
+            // Reference slots only; the strings themselves are shared
+            SortMetrics.allocated(2L * n * Integer.BYTES);
+        }
+        sort(arr, aux, chars, 0, n, 0);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("StringSort", "strings", start);
+        }
+    }
+
+    // Sorts arr[lo, hi), whose keys all share their first d characters
+    private static void sort(String[] arr, String[] aux, int[] chars, int lo, int hi, int d) {
+        while (hi - lo > INSERTION_THRESHOLD) {
+            if (hi - lo >= MSD_THRESHOLD) {
+                int[] count = histogram(arr, chars, lo, hi, d);
+                if (count != null) {
+                    int largest = largestBucket(count);
+                    if (count[largest] == hi - lo) {
+                        // Every key has the same character here, or has ended
+                        if (largest == 0) {
+                            return;
+                        }
+                        d++;
+                        continue;
+                    }
+                    int[] bounds = scatter(arr, aux, chars, count, lo, hi);
+                    // Bucket 0 holds the keys that ended at d, which are all equal
+                    for (int b = 1; b <= RADIX; b++) {
+                        if (b != largest && bounds[b + 1] - bounds[b] > 1) {
+                            sort(arr, aux, chars, bounds[b], bounds[b + 1], d + 1);
+                        }
+                    }
+                    if (largest == 0) {
+                        return;
+                    }
+                    lo = bounds[largest];
+                    hi = bounds[largest + 1];
+                    d++;
+                    continue;
+                }
+            }
+
+            // Three-way partition around the pivot character v:
+            // [lo, lt) < v, [lt, gt] == v, (gt, hi) > v
+            int v = charAt(arr[medianOfThree(arr, lo, (lo + hi) >>> 1, hi - 1, d)], d);
+            int lt = lo, gt = hi - 1, i = lo;
+            while (i <= gt) {
+                int c = charAt(arr[i], d);
+                if (c < v) {
+                    swap(arr, lt++, i++);
+                } else if (c > v) {
+                    swap(arr, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.comparisons(hi - lo);
+            }
+
+            // Keys that ended at d (v == -1) are all equal and need no more work
+            int less = lt - lo, equal = v < 0 ? 0 : gt + 1 - lt, greater = hi - gt - 1;
+            if (less >= equal && less >= greater) {
+                sortEqual(arr, aux, chars, lt, gt + 1, d, v);
+                sort(arr, aux, chars, gt + 1, hi, d);
+                hi = lt;
+            } else if (greater >= equal) {
+                sort(arr, aux, chars, lo, lt, d);
+                sortEqual(arr, aux, chars, lt, gt + 1, d, v);
+                lo = gt + 1;
+            } else {
+                sort(arr, aux, chars, lo, lt, d);
+                sort(arr, aux, chars, gt + 1, hi, d);
+                lo = lt;
+                hi = gt + 1;
+                d++;
+            }
+        }
+        insertionSort(arr, lo, hi, d);
+    }
+
+    private static void sortEqual(String[] arr, String[] aux, int[] chars, int lo, int hi, int d, int v) {
+        if (v >= 0 && hi - lo > 1) {
+            sort(arr, aux, chars, lo, hi, d + 1);
+        }
+    }
+
+    // Counts the character at d of arr[lo, hi), caching it in chars; bucket 0
+    // is for keys that end before d. Returns null if a character is too large.
+    private static int[] histogram(String[] arr, int[] chars, int lo, int hi, int d) {
+        int[] count = new int[RADIX + 1];
+        for (int i = lo; i < hi; i++) {
+            int c = charAt(arr[i], d) + 1;
+            if (c > RADIX) {
+                return null;
+            }
+            chars[i] = c;
+            count[c]++;
+        }
+        return count;
+    }
+
+    // Moves arr[lo, hi) into bucket order and returns the bucket boundaries:
+    // bucket b is [bounds[b], bounds[b + 1])
+    private static int[] scatter(String[] arr, String[] aux, int[] chars, int[] count, int lo, int hi) {
+        int[] bounds = new int[RADIX + 2];
+        int[] next = new int[RADIX + 1];
+        bounds[0] = lo;
+        for (int b = 0; b <= RADIX; b++) {
+            next[b] = bounds[b];
+            bounds[b + 1] = bounds[b] + count[b];
+        }
+        for (int i = lo; i < hi; i++) {
+            aux[next[chars[i]]++] = arr[i];
+        }
+        System.arraycopy(aux, lo, arr, lo, hi - lo);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(2L * (hi - lo));
+        }
+        return bounds;
+    }
+
+    // Character at d, or -1 past the end so that shorter keys sort first
+    private static int charAt(String s, int d) {
+        return d < s.length() ? s.charAt(d) : -1;
+    }
+
+    private static int medianOfThree(String[] arr, int a, int b, int c, int d) {
+        int x = charAt(arr[a], d), y = charAt(arr[b], d), z = charAt(arr[c], d);
+        if (x < y) {
+            return y < z ? b : x < z ? c : a;
+        }
+        return x < z ? a : y < z ? c : b;
+    }
+
+    // Sorts arr[lo, hi), comparing only from position d on
+    private static void insertionSort(String[] arr, int lo, int hi, int d) {
+        for (int i = lo + 1; i < hi; i++) {
+            String key = arr[i];
+            int j = i - 1;
+            while (j >= lo && compareFrom(arr[j], key, d) > 0) {
+                arr[j + 1] = arr[j];
+                j--;
+            }
+            arr[j + 1] = key;
+        }
+    }
+
+    private static int compareFrom(String a, String b, int d) {
+        int end = Math.min(a.length(), b.length());
+        for (int i = d; i < end; i++) {
+            int diff = a.charAt(i) - b.charAt(i);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length() - b.length();
+    }
+
+    private static void swap(Object[] arr, int i, int j) {
+        Object temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    // Byte strings packed back to back: key i is data[offsets[i], offsets[i + 1]),
+    // so offsets holds one more entry than there are keys. Bytes compare
+    // unsigned, as in Arrays.compareUnsigned, which for UTF-8 is code point order.
+    //
+    // Returns perm such that key perm[0] <= key perm[1] <= ...; equal keys may
+    // come in any order. data and offsets are not modified.
+    public static int[] argsort(byte[] data, int[] offsets) {
+        int n = checkOffsets(data, offsets);
+        int[] perm = new int[n];
+        for (int i = 0; i < n; i++) {
+            perm[i] = i;
+        }
+        if (n <= 1) {
+            return perm;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int[] aux = n >= MSD_THRESHOLD ? new int[n] : null;
+        int[] chars = n >= MSD_THRESHOLD ? new int[n] : null;
+        if (SortMetrics.ENABLED && aux != null) {
+            SortMetrics.allocated(2L * n * Integer.BYTES);
+        }
+        sort(data, offsets, perm, aux, chars, 0, n, 0);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("StringSort", "bytes", start);
+        }
+        return perm;
+    }
+
+    // Sorts packed byte strings in place: data is rewritten with the keys in
+    // order and offsets with their new positions
+    public static void sort(byte[] data, int[] offsets) {
+        int[] perm = argsort(data, offsets);
+        int n = perm.length;
+        byte[] packed = new byte[offsets[n] - offsets[0]];
+        int[] starts = new int[n + 1];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated(packed.length + (long) starts.length * Integer.BYTES);
+        }
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            int id = perm[i];
+            int length = offsets[id + 1] - offsets[id];
+            System.arraycopy(data, offsets[id], packed, k, length);
+            starts[i] = offsets[0] + k;
+            k += length;
+        }
+        starts[n] = offsets[0] + k;
+        System.arraycopy(packed, 0, data, offsets[0], packed.length);
+        System.arraycopy(starts, 0, offsets, 0, n + 1);
+    }
+
+    // Returns the number of keys described by offsets
+    private static int checkOffsets(byte[] data, int[] offsets) {
+        if (offsets.length == 0) {
+            throw new IllegalArgumentException("offsets must hold at least the start of the first key");
+        }
+        if (offsets[0] < 0 || offsets[offsets.length - 1] > data.length) {
+            throw new IllegalArgumentException("offsets [" + offsets[0] + ", " + offsets[offsets.length - 1]
+                    + "] out of bounds for length " + data.length);
+        }
+        for (int i = 1; i < offsets.length; i++) {
+            if (offsets[i] < offsets[i - 1]) {
+                throw new IllegalArgumentException("offsets must not decrease: offsets[" + i + "] = " + offsets[i]
+                        + " < " + offsets[i - 1]);
+            }
+        }
+        return offsets.length - 1;
+    }
+
+    // Sorts perm[lo, hi), whose keys all share their first d bytes; the same
+    // scheme as for String[], moving key ids instead of keys
+    private static void sort(byte[] data, int[] offsets, int[] perm, int[] aux, int[] chars, int lo, int hi, int d) {
+        while (hi - lo > INSERTION_THRESHOLD) {
+            if (hi - lo >= MSD_THRESHOLD) {
+                int[] count = new int[RADIX + 1];
+                for (int i = lo; i < hi; i++) {
+                    int c = byteAt(data, offsets, perm[i], d) + 1;
+                    chars[i] = c;
+                    count[c]++;
+                }
+                int largest = largestBucket(count);
+                if (count[largest] == hi - lo) {
+                    if (largest == 0) {
+                        return;
+                    }
+                    d++;
+                    continue;
+                }
+                int[] bounds = scatter(perm, aux, chars, count, lo, hi);
+                for (int b = 1; b <= RADIX; b++) {
+                    if (b != largest && bounds[b + 1] - bounds[b] > 1) {
+                        sort(data, offsets, perm, aux, chars, bounds[b], bounds[b + 1], d + 1);
+                    }
+                }
+                if (largest == 0) {
+                    return;
+                }
+                lo = bounds[largest];
+                hi = bounds[largest + 1];
+                d++;
+                continue;
+            }
+
+            int mid = (lo + hi) >>> 1;
+            int x = byteAt(data, offsets, perm[lo], d);
+            int y = byteAt(data, offsets, perm[mid], d);
+            int z = byteAt(data, offsets, perm[hi - 1], d);
+            int v = x < y ? (y < z ? y : Math.max(x, z)) : (x < z ? x : Math.max(y, z));
+            int lt = lo, gt = hi - 1, i = lo;
+            while (i <= gt) {
+                int c = byteAt(data, offsets, perm[i], d);
+                if (c < v) {
+                    swap(perm, lt++, i++);
+                } else if (c > v) {
+                    swap(perm, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (SortMetrics.ENABLED) {
+                SortMetrics.comparisons(hi - lo);
+            }
+
+            int less = lt - lo, equal = v < 0 ? 0 : gt + 1 - lt, greater = hi - gt - 1;
+            if (less >= equal && less >= greater) {
+                if (equal > 1) {
+                    sort(data, offsets, perm, aux, chars, lt, gt + 1, d + 1);
+                }
+                sort(data, offsets, perm, aux, chars, gt + 1, hi, d);
+                hi = lt;
+            } else if (greater >= equal) {
+                sort(data, offsets, perm, aux, chars, lo, lt, d);
+                if (equal > 1) {
+                    sort(data, offsets, perm, aux, chars, lt, gt + 1, d + 1);
+                }
+                lo = gt + 1;
+            } else {
+                sort(data, offsets, perm, aux, chars, lo, lt, d);
+                sort(data, offsets, perm, aux, chars, gt + 1, hi, d);
+                lo = lt;
+                hi = gt + 1;
+                d++;
+            }
+        }
+        insertionSort(data, offsets, perm, lo, hi, d);
+    }
+
+    private static int[] scatter(int[] perm, int[] aux, int[] chars, int[] count, int lo, int hi) {
+        int[] bounds = new int[RADIX + 2];
+        int[] next = new int[RADIX + 1];
+        bounds[0] = lo;
+        for (int b = 0; b <= RADIX; b++) {
+            next[b] = bounds[b];
+            bounds[b + 1] = bounds[b] + count[b];
+        }
+        for (int i = lo; i < hi; i++) {
+            aux[next[chars[i]]++] = perm[i];
+        }
+        System.arraycopy(aux, lo, perm, lo, hi - lo);
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(2L * (hi - lo));
+        }
+        return bounds;
+    }
+
+    // Unsigned byte d of key id, or -1 past its end
+    private static int byteAt(byte[] data, int[] offsets, int id, int d) {
+        int p = offsets[id] + d;
+        return p < offsets[id + 1] ? data[p] & 0xff : -1;
+    }
+
+    private static void insertionSort(byte[] data, int[] offsets, int[] perm, int lo, int hi, int d) {
+        for (int i = lo + 1; i < hi; i++) {
+            int key = perm[i];
+            int j = i - 1;
+            while (j >= lo && compareFrom(data, offsets, perm[j], key, d) > 0) {
+                perm[j + 1] = perm[j];
+                j--;
+            }
+            perm[j + 1] = key;
+        }
+    }
+
+    private static int compareFrom(byte[] data, int[] offsets, int a, int b, int d) {
+        int aFrom = offsets[a] + d, aTo = offsets[a + 1];
+        int bFrom = offsets[b] + d, bTo = offsets[b + 1];
+        return Arrays.compareUnsigned(data, aFrom, aTo, data, bFrom, bTo);
+    }
+
+    private static void swap(int[] arr, int i, int j) {
+        int temp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = temp;
+    }
+
+    private static int largestBucket(int[] count) {
+        int largest = 0;
+        for (int b = 1; b < count.length; b++) {
+            if (count[b] > count[largest]) {
+                largest = b;
+            }
+        }
+        return largest;
+    }
+
+    public static void main(String[] args) {
+        String[] fruits = { "pear", "apple", "fig", "apricot", "", "app", "banana", "apple" };
+        sort(fruits);
+        System.out.println("Sorted: " + Arrays.toString(fruits));
+
+        // Short ASCII keys with long shared prefixes, like generated IDs
+        int n = 2_000_000;
+        Random random = new Random(42);
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = "user-" + (char) ('a' + random.nextInt(4)) + "-" + random.nextInt(1_000_000);
+        }
+        String[] expected = keys.clone();
+        long start = System.nanoTime();
+        Arrays.sort(expected);
+        long jdk = System.nanoTime() - start;
+        String[] sorted = keys.clone();
+        start = System.nanoTime();
+        sort(sorted);
+        long multikey = System.nanoTime() - start;
+        System.out.printf("%d strings: Arrays.sort %.1f ms, StringSort %.1f ms, same order: %s%n", n, jdk / 1e6,
+                multikey / 1e6, Arrays.equals(expected, sorted));
+
+        // The same keys packed into one byte[]
+        byte[][] encoded = new byte[n][];
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            encoded[i] = keys[i].getBytes(StandardCharsets.US_ASCII);
+            total += encoded[i].length;
+        }
+        byte[] data = new byte[total];
+        int[] offsets = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            System.arraycopy(encoded[i], 0, data, offsets[i], encoded[i].length);
+            offsets[i + 1] = offsets[i] + encoded[i].length;
+        }
+        start = System.nanoTime();
+        sort(data, offsets);
+        long packed = System.nanoTime() - start;
+        boolean same = true;
+        for (int i = 0; i < n && same; i++) {
+            same = expected[i].equals(new String(data, offsets[i], offsets[i + 1] - offsets[i],
+                    StandardCharsets.US_ASCII));
+        }
+        System.out.printf("%d packed byte strings: StringSort %.1f ms, same order: %s%n", n, packed / 1e6, same);
+    }
+}
@@ -0,0 +1,82 @@
+package SortingJava;
+
+import java.util.Arrays;
+
+// Keeps the k largest values seen so far in a bounded min-heap, so values can
+// be streamed in without materializing the full input
+public class TopK {
+    private final int[] heap;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative: " + k);
+        }
+        this.heap = new int[k];
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) k * Integer.BYTES);
+        }
+    }
+
+    public void offer(int value) {
+        int steps = 0;
+        if (size < heap.length) {
+            // Sift up
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (heap[parent] <= value) {
+                    break;
+                }
+                heap[i] = heap[parent];
+                i = parent;
+                steps++;
+            }
+            heap[i] = value;
+        } else if (size > 0 && value > heap[0]) {
+            // Replace the smallest kept value and sift down
+            int i = 0;
+            int child;
+            while ((child = 2 * i + 1) < size) {
+                if (child + 1 < size && heap[child + 1] < heap[child]) {
+                    child++;
+                }
+                if (value <= heap[child]) {
+                    break;
+                }
+                heap[i] = heap[child];
+                i = child;
+                steps++;
+            }
+            heap[i] = value;
+        } else {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.comparisons(1);
+            }
+            return;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(steps + 1);
+            SortMetrics.moves(steps + 1);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Smallest of the kept values, i.e. the current k-th largest
+    public int threshold() {
+        if (size == 0) {
+            throw new IllegalStateException("No values offered");
+        }
+        return heap[0];
+    }
+
+    // Kept values in ascending order
+    public int[] toSortedArray() {
+        int[] result = Arrays.copyOf(heap, size);
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package SortingJava;
+
+// Maps double and float values onto long and int keys whose signed order is
+// the total order of Double.compare and Float.compare: -0.0 sorts before 0.0
+// and NaN sorts after positive infinity. This lets the floating-point sorts
+// reuse the integer implementations unchanged.
+//
+// Positive values keep their bits. Negative values have every bit but the
+// sign flipped, which reverses their order while keeping them below zero.
+// The mapping is its own inverse. All NaNs come back as the canonical NaN.
+final class TotalOrder {
+    private TotalOrder() {
+    }
+
+    static long toKey(double value) {
+        long bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    static double fromKey(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
+
+    static int toKey(float value) {
+        int bits = Float.floatToIntBits(value);
+        return bits ^ ((bits >> 31) & Integer.MAX_VALUE);
+    }
+
+    static float fromKey(int key) {
+        return Float.intBitsToFloat(key ^ ((key >> 31) & Integer.MAX_VALUE));
+    }
+
+    static long[] toKeys(double[] values) {
+        long[] keys = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = toKey(values[i]);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) keys.length * Long.BYTES);
+        }
+        return keys;
+    }
+
+    static void fromKeys(long[] keys, double[] values) {
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = fromKey(keys[i]);
+        }
+    }
+
+    static int[] toKeys(float[] values) {
+        int[] keys = new int[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = toKey(values[i]);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.allocated((long) keys.length * Integer.BYTES);
+        }
+        return keys;
+    }
+
+    static void fromKeys(int[] keys, float[] values) {
+        for (int i = 0; i < keys.length; i++) {
+            values[i] = fromKey(keys[i]);
+        }
+    }
+}
@@ -0,0 +1,439 @@
+package SortingJava.offheap;
+
+import SortingJava.QuickSort;
+import SortingJava.RadixSort;
+import SortingJava.SortMetrics;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Sorts ints or longs stored in a MemorySegment (heap, native or file-mapped)
+// with long indexing, so datasets past the 2^31 element limit of int[] can be
+// sorted without putting them on the GC heap
+//
+// Large segments use a parallel LSD radix sort with 8-bit digits and a
+// scratch segment of the same size, so the sort needs twice the data size:
+// sorting 64 GB of longs allocates another 64 GB of native memory. Callers
+// that cannot afford that can pass their own scratch segment, for example
+// one mapped from a file on another disk. The segment is cut into one chunk
+// per worker; the counts of every chunk are turned into per-chunk write
+// offsets, so all chunks scatter in parallel into disjoint output slots.
+// Digits shared by every element are skipped, as in RadixSort. Small
+// segments are copied into an array and sorted by RadixSort.
+//
+// Elements are read in the given byte order (native by default) and need no
+// particular alignment. Segments confined to one thread are sorted on the
+// calling thread only.
+//
+// java.lang.foreign is final from JDK 22 and a preview API on JDK 21, so
+// this class lives in its own package, built apart from the JDK 17 sources:
+//
+//   javac -d out SortingJava/*.java
+//   javac -cp out -d out SortingJava/offheap/*.java                        (JDK 22+)
+//   javac --enable-preview --release 21 -cp out -d out SortingJava/offheap/*.java  (JDK 21)
+public final class OffHeapSort {
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX = 1 << RADIX_BITS;
+    private static final int MASK = RADIX - 1;
+
+    // Segments with at most this many elements are sorted on the heap
+    static final int HEAP_THRESHOLD = 1 << 20;
+
+    // Smallest chunk handed to a worker
+    private static final long MIN_CHUNK = 1 << 16;
+
+    // The loops only access elements through these constants; a layout
+    // that is not a constant keeps the JIT from inlining the access, which
+    // made the scatter pass about three times slower
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED;
+
+    // Never started; any thread other than the owner tells shared segments
+    // from confined ones
+    private static final Thread PROBE = new Thread(() -> {
+    });
+
+    private OffHeapSort() {
+    }
+
+    public static void sortInts(MemorySegment data) {
+        sortInts(data, ByteOrder.nativeOrder());
+    }
+
+    public static void sortInts(MemorySegment data, ByteOrder order) {
+        sortInts(data, null, order);
+    }
+
+    // Sorts with a caller-supplied scratch segment of at least data.byteSize()
+    // bytes, whose contents are overwritten; null allocates native memory
+    public static void sortInts(MemorySegment data, MemorySegment scratch, ByteOrder order) {
+        long n = elementCount(data, Integer.BYTES);
+        checkScratch(data, scratch);
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        if (n <= HEAP_THRESHOLD) {
+            ValueLayout.OfInt layout = INT.withOrder(order);
+            int[] arr = data.toArray(layout);
+            RadixSort.radixSort(arr);
+            MemorySegment.copy(arr, 0, data, layout, 0, arr.length);
+        } else {
+            long[] bounds = chunkBounds(data, scratch, n);
+            // Foreign byte order is swapped in place before and after the sort
+            boolean swap = order != ByteOrder.nativeOrder();
+            if (swap) {
+                forEachChunk(bounds, (c, from, to) -> reverseInts(data, from, to));
+            }
+            if (scratch != null) {
+                radixSortInts(data, scratch.asSlice(0, data.byteSize()), n, bounds);
+            } else {
+                try (Arena arena = Arena.ofShared()) {
+                    MemorySegment allocated = arena.allocate(data.byteSize(), Integer.BYTES);
+                    if (SortMetrics.ENABLED) {
+                        SortMetrics.allocated(allocated.byteSize());
+                    }
+                    radixSortInts(data, allocated, n, bounds);
+                }
+            }
+            if (swap) {
+                forEachChunk(bounds, (c, from, to) -> reverseInts(data, from, to));
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("OffHeapSort", "int", start);
+        }
+    }
+
+    public static void sortLongs(MemorySegment data) {
+        sortLongs(data, ByteOrder.nativeOrder());
+    }
+
+    public static void sortLongs(MemorySegment data, ByteOrder order) {
+        sortLongs(data, null, order);
+    }
+
+    // Sorts with a caller-supplied scratch segment of at least data.byteSize()
+    // bytes, whose contents are overwritten; null allocates native memory
+    public static void sortLongs(MemorySegment data, MemorySegment scratch, ByteOrder order) {
+        long n = elementCount(data, Long.BYTES);
+        checkScratch(data, scratch);
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        if (n <= HEAP_THRESHOLD) {
+            ValueLayout.OfLong layout = LONG.withOrder(order);
+            long[] arr = data.toArray(layout);
+            RadixSort.radixSort(arr);
+            MemorySegment.copy(arr, 0, data, layout, 0, arr.length);
+        } else {
+            long[] bounds = chunkBounds(data, scratch, n);
+            // Foreign byte order is swapped in place before and after the sort
+            boolean swap = order != ByteOrder.nativeOrder();
+            if (swap) {
+                forEachChunk(bounds, (c, from, to) -> reverseLongs(data, from, to));
+            }
+            if (scratch != null) {
+                radixSortLongs(data, scratch.asSlice(0, data.byteSize()), n, bounds);
+            } else {
+                try (Arena arena = Arena.ofShared()) {
+                    MemorySegment allocated = arena.allocate(data.byteSize(), Long.BYTES);
+                    if (SortMetrics.ENABLED) {
+                        SortMetrics.allocated(allocated.byteSize());
+                    }
+                    radixSortLongs(data, allocated, n, bounds);
+                }
+            }
+            if (swap) {
+                forEachChunk(bounds, (c, from, to) -> reverseLongs(data, from, to));
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("OffHeapSort", "long", start);
+        }
+    }
+
+    private static long elementCount(MemorySegment data, int elementBytes) {
+        if (data.isReadOnly()) {
+            throw new IllegalArgumentException("Segment is read-only");
+        }
+        if (data.byteSize() % elementBytes != 0) {
+            throw new IllegalArgumentException("Segment size " + data.byteSize()
+                    + " is not a multiple of the element size " + elementBytes);
+        }
+        return data.byteSize() / elementBytes;
+    }
+
+    private static void checkScratch(MemorySegment data, MemorySegment scratch) {
+        if (scratch == null) {
+            return;
+        }
+        if (scratch.isReadOnly()) {
+            throw new IllegalArgumentException("Scratch segment is read-only");
+        }
+        if (scratch.byteSize() < data.byteSize()) {
+            throw new IllegalArgumentException("Scratch segment has " + scratch.byteSize() + " bytes, need "
+                    + data.byteSize());
+        }
+        if (data.asOverlappingSlice(scratch).isPresent()) {
+            throw new IllegalArgumentException("Scratch segment overlaps the data");
+        }
+    }
+
+    // Splits [0, n) into one chunk per worker, or a single chunk when the
+    // segments can only be touched by the calling thread. Every pass costs
+    // the same per element, so equal chunks balance without oversplitting.
+    private static long[] chunkBounds(MemorySegment data, MemorySegment scratch, long n) {
+        int chunks = 1;
+        if (data.isAccessibleBy(PROBE) && (scratch == null || scratch.isAccessibleBy(PROBE))) {
+            chunks = (int) Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / MIN_CHUNK));
+        }
+        long[] bounds = new long[chunks + 1];
+        for (int c = 0; c <= chunks; c++) {
+            bounds[c] = n / chunks * c + Math.min(c, n % chunks);
+        }
+        return bounds;
+    }
+
+    private static void radixSortInts(MemorySegment data, MemorySegment scratch, long n, long[] bounds) {
+        int chunks = bounds.length - 1;
+        int digits = Integer.SIZE / RADIX_BITS;
+
+        // Every digit is counted in one read
+        long[][][] counts = new long[chunks][][];
+        forEachChunk(bounds, (c, from, to) -> counts[c] = intHistogram(data, from, to));
+
+        MemorySegment src = data;
+        MemorySegment dst = scratch;
+        boolean scattered = false;
+        for (int digit = 0; digit < digits; digit++) {
+            // A digit shared by every element would only copy the segment
+            if (isConstant(counts, digit, n)) {
+                continue;
+            }
+            int d = digit;
+            int shift = digit * RADIX_BITS;
+            MemorySegment in = src;
+            MemorySegment out = dst;
+
+            // After a pass has moved elements across chunks, the per-chunk
+            // counts of later digits no longer match, only their totals do
+            if (scattered && chunks > 1) {
+                forEachChunk(bounds, (c, from, to) -> countInts(in, from, to, shift, counts[c][d]));
+            }
+
+            long[][] offsets = toOffsets(counts, digit);
+            forEachChunk(bounds, (c, from, to) -> scatterInts(in, out, from, to, shift, offsets[c]));
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(n);
+            }
+            src = out;
+            dst = in;
+            scattered = true;
+        }
+        if (src != data) {
+            copyBack(src, data, Integer.BYTES, bounds);
+        }
+    }
+
+    private static void radixSortLongs(MemorySegment data, MemorySegment scratch, long n, long[] bounds) {
+        int chunks = bounds.length - 1;
+        int digits = Long.SIZE / RADIX_BITS;
+
+        long[][][] counts = new long[chunks][][];
+        forEachChunk(bounds, (c, from, to) -> counts[c] = longHistogram(data, from, to));
+
+        MemorySegment src = data;
+        MemorySegment dst = scratch;
+        boolean scattered = false;
+        for (int digit = 0; digit < digits; digit++) {
+            if (isConstant(counts, digit, n)) {
+                continue;
+            }
+            int d = digit;
+            int shift = digit * RADIX_BITS;
+            MemorySegment in = src;
+            MemorySegment out = dst;
+
+            if (scattered && chunks > 1) {
+                forEachChunk(bounds, (c, from, to) -> countLongs(in, from, to, shift, counts[c][d]));
+            }
+
+            long[][] offsets = toOffsets(counts, digit);
+            forEachChunk(bounds, (c, from, to) -> scatterLongs(in, out, from, to, shift, offsets[c]));
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(n);
+            }
+            src = out;
+            dst = in;
+            scattered = true;
+        }
+        if (src != data) {
+            copyBack(src, data, Long.BYTES, bounds);
+        }
+    }
+
+    // Counts every digit of data[from, to); the sign bit is flipped so the
+    // top digit orders negatives first
+    private static long[][] intHistogram(MemorySegment data, long from, long to) {
+        long[][] count = new long[Integer.SIZE / RADIX_BITS][RADIX];
+        for (long i = from; i < to; i++) {
+            int bits = data.getAtIndex(INT, i) ^ Integer.MIN_VALUE;
+            count[0][bits & MASK]++;
+            count[1][(bits >>> 8) & MASK]++;
+            count[2][(bits >>> 16) & MASK]++;
+            count[3][bits >>> 24]++;
+        }
+        return count;
+    }
+
+    private static long[][] longHistogram(MemorySegment data, long from, long to) {
+        int digits = Long.SIZE / RADIX_BITS;
+        long[][] count = new long[digits][RADIX];
+        for (long i = from; i < to; i++) {
+            long bits = data.getAtIndex(LONG, i) ^ Long.MIN_VALUE;
+            for (int digit = 0; digit < digits; digit++) {
+                count[digit][(int) (bits >>> (digit * RADIX_BITS)) & MASK]++;
+            }
+        }
+        return count;
+    }
+
+    // Recounts the digit at shift of data[from, to)
+    private static void countInts(MemorySegment data, long from, long to, int shift, long[] count) {
+        Arrays.fill(count, 0);
+        for (long i = from; i < to; i++) {
+            count[((data.getAtIndex(INT, i) ^ Integer.MIN_VALUE) >>> shift) & MASK]++;
+        }
+    }
+
+    private static void countLongs(MemorySegment data, long from, long to, int shift, long[] count) {
+        Arrays.fill(count, 0);
+        for (long i = from; i < to; i++) {
+            count[(int) ((data.getAtIndex(LONG, i) ^ Long.MIN_VALUE) >>> shift) & MASK]++;
+        }
+    }
+
+    // Moves src[from, to) to the slots given by offset, bucketed by the digit at shift
+    private static void scatterInts(MemorySegment src, MemorySegment dst, long from, long to, int shift,
+            long[] offset) {
+        for (long i = from; i < to; i++) {
+            int value = src.getAtIndex(INT, i);
+            dst.setAtIndex(INT, offset[((value ^ Integer.MIN_VALUE) >>> shift) & MASK]++, value);
+        }
+    }
+
+    private static void scatterLongs(MemorySegment src, MemorySegment dst, long from, long to, int shift,
+            long[] offset) {
+        for (long i = from; i < to; i++) {
+            long value = src.getAtIndex(LONG, i);
+            dst.setAtIndex(LONG, offset[(int) ((value ^ Long.MIN_VALUE) >>> shift) & MASK]++, value);
+        }
+    }
+
+    private static void reverseInts(MemorySegment data, long from, long to) {
+        for (long i = from; i < to; i++) {
+            data.setAtIndex(INT, i, Integer.reverseBytes(data.getAtIndex(INT, i)));
+        }
+    }
+
+    private static void reverseLongs(MemorySegment data, long from, long to) {
+        for (long i = from; i < to; i++) {
+            data.setAtIndex(LONG, i, Long.reverseBytes(data.getAtIndex(LONG, i)));
+        }
+    }
+
+    private static boolean isConstant(long[][][] counts, int digit, long n) {
+        for (int b = 0; b < RADIX; b++) {
+            long total = 0;
+            for (long[][] count : counts) {
+                total += count[digit][b];
+            }
+            if (total == n) {
+                return true;
+            }
+            if (total != 0) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    // Bucket b of chunk c starts after every smaller bucket of all chunks
+    // and after bucket b of the earlier chunks, which keeps each pass stable
+    private static long[][] toOffsets(long[][][] counts, int digit) {
+        long[][] offsets = new long[counts.length][RADIX];
+        long sum = 0;
+        for (int b = 0; b < RADIX; b++) {
+            for (int c = 0; c < counts.length; c++) {
+                offsets[c][b] = sum;
+                sum += counts[c][digit][b];
+            }
+        }
+        return offsets;
+    }
+
+    private static void copyBack(MemorySegment src, MemorySegment data, int elementBytes, long[] bounds) {
+        forEachChunk(bounds, (c, from, to) -> MemorySegment.copy(src, from * elementBytes, data,
+                from * elementBytes, (to - from) * elementBytes));
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(bounds[bounds.length - 1]);
+        }
+    }
+
+    // Work done for chunk c, which covers elements [from, to)
+    interface ChunkBody {
+        void run(int c, long from, long to);
+    }
+
+    // Runs body for every chunk on the common pool, or inline for a single chunk
+    private static void forEachChunk(long[] bounds, ChunkBody body) {
+        int chunks = bounds.length - 1;
+        if (chunks == 1) {
+            body.run(0, bounds[0], bounds[1]);
+            return;
+        }
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                RecursiveAction[] tasks = new RecursiveAction[chunks];
+                for (int c = 0; c < chunks; c++) {
+                    int chunk = c;
+                    tasks[c] = new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            body.run(chunk, bounds[chunk], bounds[chunk + 1]);
+                        }
+                    };
+                }
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    public static void main(String[] args) {
+        long n = args.length > 0 ? Long.parseLong(args[0]) : 1L << 24;
+        Random random = new Random(42);
+        try (Arena arena = Arena.ofShared()) {
+            MemorySegment data = arena.allocate(n * Long.BYTES, Long.BYTES);
+            for (long i = 0; i < n; i++) {
+                data.setAtIndex(ValueLayout.JAVA_LONG, i, random.nextLong());
+            }
+
+            long start = System.nanoTime();
+            sortLongs(data);
+            long elapsed = System.nanoTime() - start;
+
+            boolean sorted = true;
+            for (long i = 1; i < n && sorted; i++) {
+                sorted = data.getAtIndex(ValueLayout.JAVA_LONG, i - 1) <= data.getAtIndex(ValueLayout.JAVA_LONG, i);
+            }
+            System.out.printf("Sorted %d native longs in %.1f ms: %s%n", n, elapsed / 1e6, sorted);
+        }
+
+        int[] small = { 170, -45, 75, -90, 802, 24, 2, 66 };
+        sortInts(MemorySegment.ofArray(small));
+        QuickSort.printArray(small);
+    }
+}
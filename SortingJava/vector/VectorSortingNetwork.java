@@ -0,0 +1,148 @@
+package SortingJava.vector;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorShuffle;
+import jdk.incubator.vector.VectorSpecies;
+
+// Bitonic sorting networks for blocks of 8, 16 and 32 ints on the Vector API
+//
+// Blocks are held in one, two or four 256-bit vectors of eight lanes. A
+// compare-exchange between elements i and i ^ j is a min/max of two whole
+// vectors when j >= 8, and otherwise a shuffle that brings each lane's
+// partner alongside followed by a min/max blend. Species, shuffles and masks
+// are static finals so that the JIT can turn each step into a few SIMD
+// instructions.
+//
+// Kept in its own package and compiled separately, with
+// --add-modules jdk.incubator.vector, so that the rest of SortingJava builds
+// without the incubator module. SortingNetwork looks this class up
+// reflectively and falls back to insertion sort when it is missing or
+// isSupported() is false.
+public final class VectorSortingNetwork {
+    private static final VectorSpecies<Integer> SPECIES = IntVector.SPECIES_256;
+    private static final int LANES = 8;
+
+    // Partner of lane i at distance j is lane i ^ j
+    private static final VectorShuffle<Integer> PARTNER_1 = VectorShuffle.fromOp(SPECIES, i -> i ^ 1);
+    private static final VectorShuffle<Integer> PARTNER_2 = VectorShuffle.fromOp(SPECIES, i -> i ^ 2);
+    private static final VectorShuffle<Integer> PARTNER_4 = VectorShuffle.fromOp(SPECIES, i -> i ^ 4);
+
+    // Lanes taking the max in the steps that build sorted runs of 2 and 4,
+    // where the direction alternates every k lanes
+    private static final VectorMask<Integer> RUN2_STEP1 = takeMax(2, 1);
+    private static final VectorMask<Integer> RUN4_STEP2 = takeMax(4, 2);
+    private static final VectorMask<Integer> RUN4_STEP1 = takeMax(4, 1);
+
+    // Lanes taking the max when merging a whole vector in ascending order;
+    // the complement merges in descending order
+    private static final VectorMask<Integer> ASCENDING_4 = takeMax(LANES * 2, 4);
+    private static final VectorMask<Integer> ASCENDING_2 = takeMax(LANES * 2, 2);
+    private static final VectorMask<Integer> ASCENDING_1 = takeMax(LANES * 2, 1);
+    private static final VectorMask<Integer> DESCENDING_4 = ASCENDING_4.not();
+    private static final VectorMask<Integer> DESCENDING_2 = ASCENDING_2.not();
+    private static final VectorMask<Integer> DESCENDING_1 = ASCENDING_1.not();
+
+    private VectorSortingNetwork() {
+    }
+
+    // The networks are written for eight-lane vectors. Where the preferred
+    // (widest native) species is narrower, SPECIES_256 would be emulated in
+    // scalar code and run far slower than insertion sort.
+    public static boolean isSupported() {
+        return IntVector.SPECIES_PREFERRED.length() >= LANES;
+    }
+
+    // Lane i takes the max in step (k, j) when it is the upper partner of an
+    // ascending pair or the lower partner of a descending one
+    private static VectorMask<Integer> takeMax(int k, int j) {
+        boolean[] bits = new boolean[LANES];
+        for (int lane = 0; lane < LANES; lane++) {
+            boolean ascending = (lane & k) == 0;
+            boolean lower = (lane & j) == 0;
+            bits[lane] = lower != ascending;
+        }
+        return VectorMask.fromArray(SPECIES, bits, 0);
+    }
+
+    // Sorts arr[from, to) where to - from <= 32; the block is padded with
+    // Integer.MAX_VALUE up to the network size, so the padding sorts last
+    public static void sort(int[] arr, int from, int to) {
+        int length = to - from;
+        if (length <= LANES) {
+            store(sortVector(load(arr, from, length), true), arr, from, length);
+        } else if (length <= 2 * LANES) {
+            IntVector a = sortVector(load(arr, from, length), true);
+            IntVector b = sortVector(load(arr, from + LANES, length - LANES), false);
+            store(mergeVector(a.min(b), true), arr, from, length);
+            store(mergeVector(a.max(b), true), arr, from + LANES, length - LANES);
+        } else {
+            // Ascending 16 from a and b
+            IntVector a = sortVector(load(arr, from, length), true);
+            IntVector b = sortVector(load(arr, from + LANES, length - LANES), false);
+            IntVector low = a.min(b);
+            IntVector high = a.max(b);
+            a = mergeVector(low, true);
+            b = mergeVector(high, true);
+
+            // Descending 16 from c and d
+            IntVector c = sortVector(load(arr, from + 2 * LANES, length - 2 * LANES), true);
+            IntVector d = sortVector(load(arr, from + 3 * LANES, length - 3 * LANES), false);
+            low = c.min(d);
+            high = c.max(d);
+            c = mergeVector(high, false);
+            d = mergeVector(low, false);
+
+            // Bitonic merge of all 32 in ascending order
+            IntVector ac = a.min(c);
+            IntVector ca = a.max(c);
+            IntVector bd = b.min(d);
+            IntVector db = b.max(d);
+            store(mergeVector(ac.min(bd), true), arr, from, length);
+            store(mergeVector(ac.max(bd), true), arr, from + LANES, length - LANES);
+            store(mergeVector(ca.min(db), true), arr, from + 2 * LANES, length - 2 * LANES);
+            store(mergeVector(ca.max(db), true), arr, from + 3 * LANES, length - 3 * LANES);
+        }
+    }
+
+    // Full bitonic sort of the eight lanes of one vector
+    private static IntVector sortVector(IntVector v, boolean ascending) {
+        v = exchange(v, PARTNER_1, RUN2_STEP1);
+        v = exchange(v, PARTNER_2, RUN4_STEP2);
+        v = exchange(v, PARTNER_1, RUN4_STEP1);
+        return mergeVector(v, ascending);
+    }
+
+    // Sorts a vector whose lanes form a bitonic sequence
+    private static IntVector mergeVector(IntVector v, boolean ascending) {
+        v = exchange(v, PARTNER_4, ascending ? ASCENDING_4 : DESCENDING_4);
+        v = exchange(v, PARTNER_2, ascending ? ASCENDING_2 : DESCENDING_2);
+        return exchange(v, PARTNER_1, ascending ? ASCENDING_1 : DESCENDING_1);
+    }
+
+    private static IntVector exchange(IntVector v, VectorShuffle<Integer> partner, VectorMask<Integer> takeMax) {
+        IntVector other = v.rearrange(partner);
+        return v.min(other).blend(v.max(other), takeMax);
+    }
+
+    // Loads up to eight elements, filling lanes past the end with the padding value
+    private static IntVector load(int[] arr, int offset, int valid) {
+        if (valid >= LANES) {
+            return IntVector.fromArray(SPECIES, arr, offset);
+        }
+        IntVector padding = IntVector.broadcast(SPECIES, Integer.MAX_VALUE);
+        if (valid <= 0) {
+            return padding;
+        }
+        VectorMask<Integer> mask = SPECIES.indexInRange(0, valid);
+        return padding.blend(IntVector.fromArray(SPECIES, arr, offset, mask), mask);
+    }
+
+    private static void store(IntVector v, int[] arr, int offset, int valid) {
+        if (valid >= LANES) {
+            v.intoArray(arr, offset);
+        } else if (valid > 0) {
+            v.intoArray(arr, offset, SPECIES.indexInRange(0, valid));
+        }
+    }
+}
@@ -1,26 +1,233 @@
 import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import SortingJava.SortMetrics;
 
 public class Cyclic {
+    // Arrays at or above this size count and fill their keys in parallel
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Key ranges wider than this many times the array length are not counted:
+    // the counters would outweigh the array, so those go to Arrays.sort
+    static final int MAX_RANGE_RATIO = 4;
+
+    // Largest number of counters the counting path allocates
+    static final int MAX_COUNTS = Integer.MAX_VALUE - 8;
+
     public static void main(String[] args) {
         int arr[] = { 3, 5, -1, 2, 3, 4 };
 
+        sort(arr, -1, 5);
+
+        System.out.println(Arrays.toString(arr));
+
+        // Any bounds are accepted; ranges too wide to count go to Arrays.sort
+        int wide[] = { Integer.MAX_VALUE, 0, Integer.MIN_VALUE, -7 };
+        sort(wide, Integer.MIN_VALUE, Integer.MAX_VALUE);
+        System.out.println(Arrays.toString(wide));
+
+        // Dense keys with duplicates, max - min + 1 == n: the case the parallel
+        // counting path is for (run with more than one core to see chunks > 1)
+        int n = 1 << 20;
+        int dense[] = new int[n];
+        Random random = new Random(42);
+        for (int i = 0; i < n; i++) {
+            dense[i] = 1000 + random.nextInt(n);
+        }
+        sort(dense, 1000, 1000 + n - 1);
+        boolean sorted = true;
+        for (int i = 1; i < n; i++) {
+            sorted &= dense[i - 1] <= dense[i];
+        }
+        System.out.println(n + " dense keys sorted: " + sorted + ", counting chunks: " + countingChunks(n, n));
+    }
+
+    // *NOTE*
+    // Sorts an array whose values all lie in [min, max]. When the array is a
+    // permutation of that range every value is swapped straight to index
+    // value - min (cyclic sort), with no extra memory. As soon as a duplicate
+    // shows up it switches to counting, which needs max - min + 1 counters,
+    // unless that is more than MAX_RANGE_RATIO counters per element.
+    static void sort(int[] arr, int min, int max) {
+        sort(arr, min, max, null);
+    }
+
+    // Same as above, but counts (when not null and large enough) is used as
+    // counter scratch space, also by the parallel path, so repeated calls do
+    // not allocate
+    static void sort(int[] arr, int min, int max, int[] counts) {
+        long range = checkRange(arr, min, max);
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+
+        if (range == arr.length && cyclicSort(arr, min)) {
+            if (SortMetrics.ENABLED) {
+                SortMetrics.phase("Cyclic", "cyclicSort", start);
+            }
+            return;
+        }
+
+        if (range > (long) MAX_RANGE_RATIO * arr.length || range > MAX_COUNTS) {
+            Arrays.sort(arr);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.phase("Cyclic", "wideRange", start);
+            }
+            return;
+        }
+
+        if (counts == null || counts.length < range) {
+            counts = new int[(int) range];
+            if (SortMetrics.ENABLED) {
+                SortMetrics.allocated(range * Integer.BYTES);
+            }
+        }
+        int chunks = countingChunks(arr.length, range);
+        if (chunks > 1) {
+            parallelCountingSort(arr, min, (int) range, chunks, counts);
+            if (SortMetrics.ENABLED) {
+                SortMetrics.moves(arr.length);
+                SortMetrics.phase("Cyclic", "parallelCountingSort", start);
+            }
+            return;
+        }
+
+        Arrays.fill(counts, 0, (int) range, 0);
+        for (int value : arr) {
+            counts[value - min]++;
+        }
+        int k = 0;
+        for (int key = 0; key < range; key++) {
+            for (int c = counts[key]; c > 0; c--) {
+                arr[k++] = key + min;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.moves(arr.length);
+            SortMetrics.phase("Cyclic", "countingSort", start);
+        }
+    }
+
+    // Number of workers the counting path splits an array of n values with
+    // the given key range across; 1 means it counts sequentially
+    static int countingChunks(int n, long range) {
+        if (range > (long) MAX_RANGE_RATIO * n || range > MAX_COUNTS) {
+            return 1;
+        }
+        return Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), n / PARALLEL_THRESHOLD));
+    }
+
+    // Rejects min > max and out-of-range values up front so the sort never
+    // fails halfway, and returns the number of possible keys
+    static long checkRange(int[] arr, int min, int max) {
+        if (min > max) {
+            throw new IllegalArgumentException("min > max: " + min + " > " + max);
+        }
+        for (int i = 0; i < arr.length; i++) {
+            if (arr[i] < min || arr[i] > max) {
+                throw new IllegalArgumentException(
+                        "Value " + arr[i] + " at index " + i + " is outside [" + min + ", " + max + "]");
+            }
+        }
+        return (long) max - min + 1;
+    }
+
+    // Swaps every value to index value - min; returns false if a duplicate is
+    // found, leaving the array a permutation of its original contents
+    static boolean cyclicSort(int[] arr, int min) {
         int i = 0;
+        long swaps = 0;
+        boolean permutation = true;
         while (i < arr.length) {
-            int correct = arr[i] - 1;
+            int correct = arr[i] - min;
             if (arr[correct] != arr[i]) {
-                int temp = arr[correct];
-                arr[correct] = arr[i];
-                arr[correct] = temp;
-
+                swap(arr, correct, i);
+                swaps++;
+            } else if (correct != i) {
+                permutation = false;
+                break;
             } else {
                 i++;
             }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(swaps + i);
+            SortMetrics.moves(2 * swaps);
+        }
+        return permutation;
+    }
 
+    // Splits the key range, not the array, across the workers: each one scans
+    // the whole array but counts only its own keys, into its own part of the
+    // one counts table, then writes those keys back at its prefix offset. A
+    // worker's part of the table is 1/chunks of it, so its increments also
+    // stay in a smaller piece of cache.
+    static void parallelCountingSort(int[] arr, int min, int range, int chunks, int[] counts) {
+        int[] keyStart = new int[chunks + 1];
+        for (int c = 0; c <= chunks; c++) {
+            keyStart[c] = (int) ((long) range * c / chunks);
         }
+        int[] totals = new int[chunks];
 
-    
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                RecursiveAction[] tasks = new RecursiveAction[chunks];
+                for (int c = 0; c < chunks; c++) {
+                    int chunk = c;
+                    int firstKey = keyStart[c];
+                    int span = keyStart[c + 1] - firstKey;
+                    tasks[c] = new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            Arrays.fill(counts, firstKey, firstKey + span, 0);
+                            int base = min + firstKey;
+                            for (int value : arr) {
+                                // Unsigned, so values below base fail the test too
+                                int key = value - base;
+                                if (Integer.compareUnsigned(key, span) < 0) {
+                                    counts[firstKey + key]++;
+                                }
+                            }
+                            int total = 0;
+                            for (int key = firstKey; key < firstKey + span; key++) {
+                                total += counts[key];
+                            }
+                            totals[chunk] = total;
+                        }
+                    };
+                }
+                invokeAll(tasks);
+            }
+        });
 
-        System.out.println(Arrays.toString(arr));
+        int[] outStart = new int[chunks];
+        for (int c = 1; c < chunks; c++) {
+            outStart[c] = outStart[c - 1] + totals[c - 1];
+        }
+
+        ForkJoinPool.commonPool().invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                RecursiveAction[] tasks = new RecursiveAction[chunks];
+                for (int c = 0; c < chunks; c++) {
+                    int firstKey = keyStart[c];
+                    int lastKey = keyStart[c + 1];
+                    int start = outStart[c];
+                    tasks[c] = new RecursiveAction() {
+                        @Override
+                        protected void compute() {
+                            int k = start;
+                            for (int key = firstKey; key < lastKey; key++) {
+                                Arrays.fill(arr, k, k + counts[key], key + min);
+                                k += counts[key];
+                            }
+                        }
+                    };
+                }
+                invokeAll(tasks);
+            }
+        });
     }
 
     static void swap(int[] arr, int first, int second) {
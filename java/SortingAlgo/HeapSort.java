@@ -0,0 +1,102 @@
+import java.util.Arrays;
+
+import SortingJava.SortMetrics;
+
+public class HeapSort {
+    // Four children per node keep a node's children in one cache line
+    static final int DEFAULT_ARITY = 4;
+
+    public static void main(String[] args) {
+        int arr[] = { 4, 3, 2, 7, 8, 2, 3, 1 };
+
+        sort(arr);
+
+        System.out.println(Arrays.toString(arr));
+    }
+
+    // *NOTE*
+    // In-place heapsort with O(1) extra memory and O(n log n) comparisons in
+    // every case. The array is turned into a max-heap where node i has
+    // children d*i+1 .. d*i+d, then the max is swapped to the end repeatedly.
+    static void sort(int[] arr) {
+        sort(arr, DEFAULT_ARITY);
+    }
+
+    static void sort(int[] arr, int arity) {
+        if (arity < 2) {
+            throw new IllegalArgumentException("arity must be at least 2: " + arity);
+        }
+        int n = arr.length;
+        if (n < 2) {
+            return;
+        }
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        long compared = 0;
+        long moved = n - 1;
+
+        // Build the heap from the last parent up to the root
+        for (int i = (n - 2) / arity; i >= 0; i--) {
+            long counts = siftDown(arr, i, arr[i], n, arity);
+            compared += counts >>> 32;
+            moved += (int) counts;
+        }
+
+        // Move the max to the end and re-insert the displaced last element
+        for (int end = n - 1; end > 0; end--) {
+            int value = arr[end];
+            arr[end] = arr[0];
+            long counts = siftDown(arr, 0, value, end, arity);
+            compared += counts >>> 32;
+            moved += (int) counts;
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(compared);
+            SortMetrics.moves(moved);
+            SortMetrics.phase("HeapSort", "sort", start);
+        }
+    }
+
+    // *NOTE*
+    // Bottom-up sift-down: the hole at root is first pushed all the way to a
+    // leaf along the largest children, without comparing against value, and
+    // value is then sifted back up from there. The value usually belongs near
+    // the bottom, so this saves about one comparison per level. Returns the
+    // comparisons made in the high 32 bits and the elements moved in the low
+    // ones, which sort adds up and reports once.
+    static long siftDown(int[] arr, int root, int value, int size, int arity) {
+        int hole = root;
+        int compared = 0;
+        int moved = 1;
+        // Nodes past lastParent have no children. Testing the hole against it,
+        // rather than arity * hole + 1 against size, keeps the child index
+        // from overflowing on arrays of more than (2^31 - 1) / arity elements.
+        int lastParent = size < 2 ? -1 : (size - 2) / arity;
+        while (hole <= lastParent) {
+            int child = arity * hole + 1;
+            int last = child + Math.min(arity, size - child);
+            int max = child;
+            for (int c = child + 1; c < last; c++) {
+                if (arr[c] > arr[max]) {
+                    max = c;
+                }
+            }
+            arr[hole] = arr[max];
+            hole = max;
+            compared += last - child - 1;
+            moved++;
+        }
+
+        while (hole > root) {
+            int parent = (hole - 1) / arity;
+            compared++;
+            if (arr[parent] >= value) {
+                break;
+            }
+            arr[hole] = arr[parent];
+            hole = parent;
+            moved++;
+        }
+        arr[hole] = value;
+        return (long) compared << 32 | moved;
+    }
+}
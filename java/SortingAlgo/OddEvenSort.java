@@ -0,0 +1,219 @@
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import SortingJava.SortMetrics;
+
+public class OddEvenSort {
+    // Arrays at or above this size split every phase across worker threads
+    static final int PARALLEL_THRESHOLD = 1 << 14;
+
+    public static void main(String[] args) {
+        int arr[] = { 4, 3, 2, 7, 8, 2, 3, 1 };
+        sort(arr);
+        System.out.println(Arrays.toString(arr));
+
+        benchmark(64, 200_000);
+        benchmark(1024, 2_000);
+        benchmark(PARALLEL_THRESHOLD * 2, 2);
+    }
+
+    // *NOTE*
+    // Odd-even transposition sort: even phases compare-exchange pairs (0,1),
+    // (2,3), ... and odd phases pairs (1,2), (3,4), ... Pairs inside a phase
+    // never overlap, so a phase can be split across threads. It stops as soon
+    // as an even and an odd phase in a row make no swap, and never needs more
+    // than n phases.
+    static void sort(int[] arr) {
+        long start = SortMetrics.ENABLED ? System.nanoTime() : 0;
+        int threads = ForkJoinPool.getCommonPoolParallelism();
+        if (arr.length >= PARALLEL_THRESHOLD && threads > 1) {
+            parallelSort(arr, threads);
+        } else {
+            sequentialSort(arr);
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.phase("OddEvenSort", "sort", start);
+        }
+    }
+
+    static void sequentialSort(int[] arr) {
+        int n = arr.length;
+        int phase = 0;
+        while (phase < n) {
+            int changed = 0;
+            for (int i = 0; i + 1 < n; i += 2) {
+                changed |= compareExchange(arr, i);
+            }
+            for (int i = 1; i + 1 < n; i += 2) {
+                changed |= compareExchange(arr, i);
+            }
+            phase += 2;
+            if (changed == 0) {
+                break;
+            }
+        }
+        if (SortMetrics.ENABLED && n > 1) {
+            // An even and an odd phase together compare every adjacent pair once
+            long pairs = (long) phase / 2 * (n - 1);
+            SortMetrics.comparisons(pairs);
+            SortMetrics.moves(2 * pairs);
+        }
+    }
+
+    // Branchless compare-exchange of arr[i] and arr[i + 1]; min/max compile
+    // to conditional moves, so random data costs no branch mispredictions.
+    // Returns non-zero when the pair was out of order.
+    static int compareExchange(int[] arr, int i) {
+        int a = arr[i];
+        int b = arr[i + 1];
+        int low = Math.min(a, b);
+        arr[i] = low;
+        arr[i + 1] = Math.max(a, b);
+        return a ^ low;
+    }
+
+    // Runs the phases inside the common pool: every phase forks one task per
+    // slice of the pairs and joins them all before the next one starts. A
+    // failure in any slice ends the sort and is rethrown to the caller, and
+    // no threads are started per call.
+    static void parallelSort(int[] arr, int slices) {
+        ForkJoinPool.commonPool().invoke(new PhaseLoop(arr, slices));
+    }
+
+    private static final class PhaseLoop extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int slices;
+
+        PhaseLoop(int[] arr, int slices) {
+            this.arr = arr;
+            this.slices = slices;
+        }
+
+        @Override
+        protected void compute() {
+            int n = arr.length;
+            PhaseSlice[] tasks = new PhaseSlice[slices];
+            int phase = 0;
+            while (phase < n) {
+                int changed = runPhase(tasks, 0) | runPhase(tasks, 1);
+                phase += 2;
+                if (changed == 0) {
+                    break;
+                }
+            }
+            if (SortMetrics.ENABLED && n > 1) {
+                // Counted here once rather than by every slice of every phase
+                long pairs = (long) phase / 2 * (n - 1);
+                SortMetrics.comparisons(pairs);
+                SortMetrics.moves(2 * pairs);
+            }
+        }
+
+        // Runs the even (start 0) or odd (start 1) phase; returns non-zero
+        // when any pair was out of order
+        private int runPhase(PhaseSlice[] tasks, int start) {
+            int pairs = arr.length / 2;
+            for (int t = 0; t < slices; t++) {
+                int from = (int) ((long) pairs * t / slices);
+                int to = (int) ((long) pairs * (t + 1) / slices);
+                tasks[t] = new PhaseSlice(arr, start, from, to);
+            }
+            invokeAll(tasks);
+            int changed = 0;
+            for (PhaseSlice task : tasks) {
+                changed |= task.changed;
+            }
+            return changed;
+        }
+    }
+
+    // Compare-exchanges pairs [from, to) of one phase
+    private static final class PhaseSlice extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] arr;
+        private final int start;
+        private final int from;
+        private final int to;
+        int changed;
+
+        PhaseSlice(int[] arr, int start, int from, int to) {
+            this.arr = arr;
+            this.start = start;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            int local = 0;
+            for (int p = from; p < to; p++) {
+                int i = 2 * p + start;
+                if (i + 1 < arr.length) {
+                    local |= compareExchange(arr, i);
+                }
+            }
+            changed = local;
+        }
+    }
+
+    // bubble from bubble&selection, copied here because that file's class name
+    // is not a valid Java identifier and cannot be referenced
+    static void bubble(int a[]) {
+        long swaps = 0;
+        for (int i = 0; i < a.length; i++) {
+            for (int j = 1; j < a.length - i; j++) {
+                if (a[j] < a[j - 1]) {
+                    int temp = a[j];
+                    a[j] = a[j - 1];
+                    a[j - 1] = temp;
+                    swaps++;
+                }
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons((long) a.length * (a.length - 1) / 2);
+            SortMetrics.moves(2 * swaps);
+        }
+    }
+
+    // Prints the average time per sort of random arrays of the given size
+    static void benchmark(int size, int iterations) {
+        Random random = new Random(42);
+        int[][] inputs = new int[iterations][size];
+        for (int[] input : inputs) {
+            for (int i = 0; i < size; i++) {
+                input[i] = random.nextInt();
+            }
+        }
+
+        long bubbleNanos = time(inputs, OddEvenSort::bubble);
+        long oddEvenNanos = time(inputs, OddEvenSort::sort);
+        System.out.printf("size %6d: bubble %10.1f us, odd-even %10.1f us%n", size,
+                bubbleNanos / 1e3 / iterations, oddEvenNanos / 1e3 / iterations);
+    }
+
+    interface Sorter {
+        void sort(int[] arr);
+    }
+
+    private static long time(int[][] inputs, Sorter sorter) {
+        // Warm up on copies so both sorts run compiled code
+        for (int i = 0; i < Math.min(inputs.length, 100); i++) {
+            sorter.sort(inputs[i].clone());
+        }
+        int[][] copies = new int[inputs.length][];
+        for (int i = 0; i < inputs.length; i++) {
+            copies[i] = inputs[i].clone();
+        }
+        long start = System.nanoTime();
+        for (int[] copy : copies) {
+            sorter.sort(copy);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -1,6 +1,8 @@
 
 import java.util.*;
 
+import SortingJava.SortMetrics;
+
 class bubble&selection {
     public static void main(String[] args) {
         int a[] = { 4, 3, 2, 7, 8, 2, 3, 1 };
@@ -21,18 +23,10 @@ class bubble&selection {
     // CYCLIC SORT uses the indexes to sort the array when its from 1 to n , meaning
     // {1 ,2, 3 ,4} has the index 1-0 , 2-1 , 3-2 , 4-3 (index = value -1 )
     // swap the value with index(this.value-1)
+    // Cyclic.sort checks the range up front and also handles duplicates
 
     static void Cyclic(int arr[]) {
-        int i = 0;
-        while (i < arr.length) {
-            int correct = arr[i] - 1;
-            if (arr[correct] != arr[i]) {
-                swap(arr, correct, i);
-
-            } else {
-                i++;
-            }
-        }
+        Cyclic.sort(arr, 1, arr.length);
 
         System.out.println();
         System.out.print("sorted" + Arrays.toString(arr));
@@ -41,27 +35,41 @@ class bubble&selection {
 
         // *NOTE*
         // for every pass the last element will be at the correct place therefore innerloop will run till length-i times 
+        // a pass without any swap means the array is already sorted
+        // see OddEvenSort for a parallel, branchless variant
     static int[] bubble(int a[]) {
+        long compared = 0;
+        long swaps = 0;
         for (int i = 0; i < a.length; i++) {
+            boolean swapped = false;
             for (int j = 1; j < a.length - i; j++) {
+                compared++;
                 if (a[j] < a[j - 1]) {
                     int temp = a[j];
                     a[j] = a[j - 1];
                     a[j - 1] = temp;
+                    swapped = true;
+                    swaps++;
                 }
             }
+            if (!swapped) {
+                break;
+            }
+        }
+        if (SortMetrics.ENABLED) {
+            SortMetrics.comparisons(compared);
+            SortMetrics.moves(2 * swaps);
         }
         return a;
     }
 
 
 
+    // *NOTE*
+    // selection sort scans the whole unsorted part on every pass (O(n^2));
+    // HeapSort keeps the max of that part in a heap instead, still in place
     static int[] selection(int[] arr) {
-        for (int i = 0; i < arr.length; i++) {
-            int last = arr.length - i - 1;
-            int max = getMaxIndex(arr, 0, last);
-            swap(arr, max, last);
-        }
+        HeapSort.sort(arr);
         return arr;
     }
 
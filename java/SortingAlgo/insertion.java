@@ -1,20 +1,35 @@
 import java.util.Arrays;
 
+import SortingJava.SortMetrics;
+
+// *NOTE*
+// inserting into an already sorted buffer shifts O(n) elements per value, so
+// keeping a buffer sorted as values trickle in is O(n^2) overall;
+// SortingJava.SortedAccumulator does it in O(log n) amortized per value
 class insertion{
     public static void main(String args[]){
          int arr[] = {1,3,2,5,4};
+         long compared = 0;
+         long swaps = 0;
 
          for(int i = 0 ; i < arr.length-1 ; i++){
             for(int j = i+1 ; j > 0 ; j--){
+                compared++;
                 if(arr[j] < arr[j-1]){
                     int temp = arr[j];
                     arr[j] = arr[j-1];
                     arr[j-1]= temp;
+                    swaps++;
                 }else{
                     break;
                 }
             }
          }
+         if(SortMetrics.ENABLED){
+            SortMetrics.comparisons(compared);
+            SortMetrics.moves(2*swaps);
+            System.out.println(SortMetrics.snapshot());
+         }
 
          System.out.println(Arrays.toString(arr));
     }